@@ -6,4 +6,5 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class Utils {
     public static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    public static final String HAS_MORE_HEADER = "X-Has-More";
 }
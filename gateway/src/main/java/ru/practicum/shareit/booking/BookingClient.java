@@ -6,11 +6,14 @@ import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
 import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.validators.Validator;
 
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -32,11 +35,22 @@ public class BookingClient extends BaseClient {
         return post("", userId, dto);
     }
 
+    public ResponseEntity<Object> createBatch(Long userId, List<BookingInputDto> dtos) {
+        Validator.bookingBatchValidation(dtos);
+        return post("/batch", userId, dtos);
+    }
+
     public ResponseEntity<Object> approve(Long userId, Long bookingId, Boolean approved) {
         Map<String, Object> parameters = Map.of("approved", approved);
         return patch("/" + bookingId + "?approved={approved}", userId, parameters, new BookingInputDto());
     }
 
+    public ResponseEntity<Object> approveAll(Long userId, BookingApprovalDto dto, Boolean approved) {
+        Validator.bookingApprovalValidation(dto);
+        Map<String, Object> parameters = Map.of("approved", approved);
+        return patch("/bulk?approved={approved}", userId, parameters, dto);
+    }
+
     public ResponseEntity<Object> getByBookingId(Long userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
@@ -62,4 +76,60 @@ public class BookingClient extends BaseClient {
         );
         return get("/owner?state={state}&from={from}&size={size}", ownerId, parameters);
     }
+
+    public ResponseEntity<Object> getArchivedByBookerId(Long bookerId, Integer from, Integer size) {
+        Validator.paginationDataValidation(from, size);
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "size", size
+        );
+        return get("/history?from={from}&size={size}", bookerId, parameters);
+    }
+
+    public ResponseEntity<Object> getArchivedByOwnerId(Long ownerId, Integer from, Integer size) {
+        Validator.paginationDataValidation(from, size);
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "size", size
+        );
+        return get("/owner/history?from={from}&size={size}", ownerId, parameters);
+    }
+
+    public ResponseEntity<StreamingResponseBody> exportByBookerId(Long bookerId) {
+        return stream("/export", bookerId);
+    }
+
+    public ResponseEntity<StreamingResponseBody> exportByOwnerId(Long ownerId) {
+        return stream("/owner/export", ownerId);
+    }
+
+    public ResponseEntity<Object> countByBookerId(Long bookerId) {
+        return get("/counts", bookerId);
+    }
+
+    public ResponseEntity<Object> countByOwnerId(Long ownerId) {
+        return get("/owner/counts", ownerId);
+    }
+
+    public ResponseEntity<Object> getPageByBookerId(Long bookerId, String state, String cursor, Integer size) {
+        Validator.paginationDataValidation(0, size);
+        Validator.bookingStateValidation(state);
+        Map<String, Object> parameters = Map.of(
+                "state", state,
+                "cursor", cursor,
+                "size", size
+        );
+        return get("?state={state}&cursor={cursor}&size={size}", bookerId, parameters);
+    }
+
+    public ResponseEntity<Object> getPageByOwnerId(Long ownerId, String state, String cursor, Integer size) {
+        Validator.paginationDataValidation(0, size);
+        Validator.bookingStateValidation(state);
+        Map<String, Object> parameters = Map.of(
+                "state", state,
+                "cursor", cursor,
+                "size", size
+        );
+        return get("/owner?state={state}&cursor={cursor}&size={size}", ownerId, parameters);
+    }
 }
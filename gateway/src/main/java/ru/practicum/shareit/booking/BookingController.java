@@ -5,11 +5,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.util.List;
 
 import static ru.practicum.shareit.Utils.USER_ID_HEADER;
 
@@ -28,6 +31,13 @@ public class BookingController {
         return client.create(userId, dto);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<Object> createBatch(@RequestHeader(USER_ID_HEADER) Long userId,
+                                              @RequestBody List<BookingInputDto> dtos) {
+        log.info("Creating batch of {} bookings for user {}", dtos.size(), userId);
+        return client.createBatch(userId, dtos);
+    }
+
     @PatchMapping("/{bookingId}")
     public ResponseEntity<Object> approve(@RequestHeader(USER_ID_HEADER) Long userId,
                                           @PathVariable Long bookingId,
@@ -36,6 +46,54 @@ public class BookingController {
         return client.approve(userId, bookingId, isApproved);
     }
 
+    @PatchMapping("/bulk")
+    public ResponseEntity<Object> approveAll(@RequestHeader(USER_ID_HEADER) Long userId,
+                                             @RequestParam(name = "approved") Boolean isApproved,
+                                             @RequestBody BookingApprovalDto dto) {
+        log.info("Bulk approve = {} by user {}", isApproved, userId);
+        return client.approveAll(userId, dto, isApproved);
+    }
+
+    @GetMapping("/counts")
+    public ResponseEntity<Object> countByBookerId(@RequestHeader(USER_ID_HEADER) Long bookerId) {
+        log.info("Counting user's {} bookings by state", bookerId);
+        return client.countByBookerId(bookerId);
+    }
+
+    @GetMapping("/owner/counts")
+    public ResponseEntity<Object> countByOwnerId(@RequestHeader(USER_ID_HEADER) Long ownerId) {
+        log.info("Counting owner's {} bookings by state", ownerId);
+        return client.countByOwnerId(ownerId);
+    }
+
+    @GetMapping("/history")
+    public ResponseEntity<Object> getArchivedByBookerId(@RequestHeader(USER_ID_HEADER) Long bookerId,
+                                                        @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                                                        @Positive @RequestParam(defaultValue = "10") Integer size) {
+        log.info("Getting user's {} archived bookings", bookerId);
+        return client.getArchivedByBookerId(bookerId, from, size);
+    }
+
+    @GetMapping("/owner/history")
+    public ResponseEntity<Object> getArchivedByOwnerId(@RequestHeader(USER_ID_HEADER) Long ownerId,
+                                                       @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                                                       @Positive @RequestParam(defaultValue = "10") Integer size) {
+        log.info("Getting owner's {} archived bookings", ownerId);
+        return client.getArchivedByOwnerId(ownerId, from, size);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportByBookerId(@RequestHeader(USER_ID_HEADER) Long bookerId) {
+        log.info("Exporting user's {} bookings", bookerId);
+        return client.exportByBookerId(bookerId);
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportByOwnerId(@RequestHeader(USER_ID_HEADER) Long ownerId) {
+        log.info("Exporting owner's {} bookings", ownerId);
+        return client.exportByOwnerId(ownerId);
+    }
+
     @GetMapping("/{bookingId}")
     public ResponseEntity<Object> getByBookingId(@RequestHeader(USER_ID_HEADER) Long userId,
                                           @PathVariable Long bookingId) {
@@ -47,8 +105,12 @@ public class BookingController {
     public ResponseEntity<Object> getByBookerId(@RequestHeader(USER_ID_HEADER) Long bookerId,
                                                 @RequestParam(defaultValue = "ALL") String state,
                                                 @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                                @Positive @RequestParam(defaultValue = "10") Integer size) {
+                                                @Positive @RequestParam(defaultValue = "10") Integer size,
+                                                @RequestParam(required = false) String cursor) {
         log.info("Getting user's {} bookings with state {}", bookerId, state);
+        if (cursor != null) {
+            return client.getPageByBookerId(bookerId, state, cursor, size);
+        }
         return client.getByBookerId(bookerId, state, from, size);
     }
 
@@ -56,8 +118,12 @@ public class BookingController {
     public ResponseEntity<Object> getByOwnerId(@RequestHeader(USER_ID_HEADER) Long ownerId,
                                                @RequestParam(defaultValue = "ALL") String state,
                                                @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                               @Positive @RequestParam(defaultValue = "10") Integer size) {
+                                               @Positive @RequestParam(defaultValue = "10") Integer size,
+                                               @RequestParam(required = false) String cursor) {
         log.info("Getting owner's {} booking with state {}", ownerId, state);
+        if (cursor != null) {
+            return client.getPageByOwnerId(ownerId, state, cursor, size);
+        }
         return client.getByOwnerId(ownerId, state, from, size);
     }
 }
@@ -12,6 +12,7 @@ import ru.practicum.shareit.item.dto.CommentInputDto;
 import ru.practicum.shareit.item.dto.ItemInputDto;
 import ru.practicum.shareit.validators.Validator;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 
 @Service
@@ -49,14 +50,58 @@ public class ItemClient extends BaseClient {
         return get("?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> search(Long userId, String text, Integer from, Integer size) {
+    public ResponseEntity<Object> getCatalog(Long userId, String cursor, Integer size) {
+        Validator.paginationDataValidation(0, size);
+        if (cursor == null) {
+            return get("/catalog?size={size}", userId, Map.of("size", size));
+        }
+        Map<String, Object> parameters = Map.of(
+                "cursor", cursor,
+                "size", size
+        );
+        return get("/catalog?cursor={cursor}&size={size}", userId, parameters);
+    }
+
+    public ResponseEntity<Object> getComments(Long userId, Long itemId, String cursor, Integer size) {
+        Validator.paginationDataValidation(0, size);
+        if (cursor == null) {
+            return get("/" + itemId + "/comments?size={size}", userId, Map.of("size", size));
+        }
+        Map<String, Object> parameters = Map.of(
+                "cursor", cursor,
+                "size", size
+        );
+        return get("/" + itemId + "/comments?cursor={cursor}&size={size}", userId, parameters);
+    }
+
+    public ResponseEntity<Object> search(Long userId, String text, LocalDateTime start, LocalDateTime end,
+                                         Integer from, Integer size) {
         Validator.paginationDataValidation(from, size);
+        if (start == null) {
+            Map<String, Object> parameters = Map.of(
+                    "text", text,
+                    "from", from,
+                    "size", size
+            );
+            return get("/search?text={text}&from={from}&size={size}", userId, parameters);
+        }
         Map<String, Object> parameters = Map.of(
                 "text", text,
+                "start", start,
+                "end", end,
                 "from", from,
                 "size", size
         );
-        return get("/search?text={text}&from={from}&size={size}", userId, parameters);
+        return get("/search?text={text}&start={start}&end={end}&from={from}&size={size}", userId, parameters);
+    }
+
+    public ResponseEntity<Object> getAvailability(Long userId, Long itemId, LocalDateTime from, LocalDateTime to) {
+        Validator.availabilityRangeValidation(from, to);
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to
+        );
+        return get("/" + itemId + "/availability?from={from}&to={to}", userId, parameters);
     }
 
     public ResponseEntity<Object> addComment(Long userId, Long itemId, CommentInputDto commentDto) {
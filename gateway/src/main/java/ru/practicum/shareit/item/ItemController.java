@@ -2,19 +2,23 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatus;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.dto.CommentInputDto;
 import ru.practicum.shareit.item.dto.ItemInputDto;
+import ru.practicum.shareit.validators.Validator;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
 
+import static ru.practicum.shareit.Utils.HAS_MORE_HEADER;
 import static ru.practicum.shareit.Utils.USER_ID_HEADER;
 
 @RestController
@@ -55,16 +59,53 @@ public class ItemController {
         return client.getByUserId(userId, from, size);
     }
 
+    @GetMapping("/catalog")
+    public ResponseEntity<Object> getCatalog(@RequestHeader(USER_ID_HEADER) Long userId,
+                                             @RequestParam(required = false) String cursor,
+                                             @Positive @Max(Validator.MAX_PAGE_SIZE)
+                                             @RequestParam(defaultValue = "10") Integer size) {
+        log.info("Getting catalog of user id = {}", userId);
+        return client.getCatalog(userId, cursor, size);
+    }
+
     @GetMapping("/search")
     public ResponseEntity<Object> search(@RequestHeader(USER_ID_HEADER) Long userId,
                                          @RequestParam String text,
+                                         @RequestParam(required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+                                         @RequestParam(required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
                                          @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
                                          @Positive @RequestParam(defaultValue = "10") Integer size) {
+        Validator.searchWindowValidation(start, end);
         if (text.isBlank() || text.isEmpty()) {
-            return new ResponseEntity<>(Collections.emptyList(), HttpStatus.OK);
+            return ResponseEntity.ok()
+                    .header(HAS_MORE_HEADER, String.valueOf(false))
+                    .body(Collections.emptyList());
         }
-        log.info("Search by text = {}", text);
-        return client.search(userId, text, from, size);
+        log.info("Search by text = {}, free from {} to {}", text, start, end);
+        return client.search(userId, text, start, end, from, size);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ResponseEntity<Object> getAvailability(@RequestHeader(USER_ID_HEADER) Long userId,
+                                                  @PathVariable Long itemId,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime from,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime to) {
+        log.info("Getting availability of item {} from {} to {}", itemId, from, to);
+        return client.getAvailability(userId, itemId, from, to);
+    }
+
+    @GetMapping("/{itemId}/comments")
+    public ResponseEntity<Object> getComments(@RequestHeader(USER_ID_HEADER) Long userId,
+                                              @PathVariable Long itemId,
+                                              @RequestParam(required = false) String cursor,
+                                              @Positive @Max(Validator.MAX_PAGE_SIZE)
+                                              @RequestParam(defaultValue = "10") Integer size) {
+        log.info("Getting comments of itemId = {}", itemId);
+        return client.getComments(userId, itemId, cursor, size);
     }
 
     @PostMapping("/{itemId}/comment")
@@ -3,21 +3,69 @@ package ru.practicum.shareit.validators;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import ru.practicum.shareit.booking.State;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
 import ru.practicum.shareit.exception.ValidationException;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class Validator {
+    public static final int MAX_BOOKING_BATCH_SIZE = 100;
+    public static final int MAX_AVAILABILITY_DAYS = 366;
+    public static final int MAX_PAGE_SIZE = 100;
+
     public static void bookingTimeValidation(BookingInputDto dto) {
         if (dto.getEnd().isBefore(dto.getStart()) || dto.getEnd().isEqual(dto.getStart())) {
             throw new ValidationException("Start time is not before end time.");
         }
     }
 
+    public static void bookingBatchValidation(List<BookingInputDto> dtos) {
+        if (dtos == null || dtos.isEmpty() || dtos.size() > MAX_BOOKING_BATCH_SIZE) {
+            throw new ValidationException("Batch must contain from 1 to " + MAX_BOOKING_BATCH_SIZE + " bookings.");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (BookingInputDto dto : dtos) {
+            if (dto.getItemId() == null || dto.getStart() == null || dto.getEnd() == null
+                    || !dto.getStart().isAfter(now)) {
+                throw new ValidationException("Every booking needs an item ID and start and end in the future.");
+            }
+            bookingTimeValidation(dto);
+        }
+    }
+
+    public static void bookingApprovalValidation(BookingApprovalDto dto) {
+        boolean byIds = dto.getBookingIds() != null && !dto.getBookingIds().isEmpty();
+        if (byIds == (dto.getItemId() != null)) {
+            throw new ValidationException("Either booking IDs or item ID must be passed.");
+        }
+        if (byIds && dto.getBookingIds().size() > MAX_BOOKING_BATCH_SIZE) {
+            throw new ValidationException("No more than " + MAX_BOOKING_BATCH_SIZE + " bookings can be approved at once.");
+        }
+    }
+
+    public static void availabilityRangeValidation(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new ValidationException("Start time is not before end time.");
+        }
+        if (from.plusDays(MAX_AVAILABILITY_DAYS).isBefore(to)) {
+            throw new ValidationException("Availability range must not exceed " + MAX_AVAILABILITY_DAYS + " days.");
+        }
+    }
+
+    public static void searchWindowValidation(LocalDateTime start, LocalDateTime end) {
+        if ((start == null) != (end == null)) {
+            throw new ValidationException("Both start and end of the search window must be passed.");
+        }
+        if (start != null && !start.isBefore(end)) {
+            throw new ValidationException("Start time is not before end time.");
+        }
+    }
+
     public static void bookingStateValidation(String passedState) {
         List<String> stateNames = Stream.of(State.values()).map(Enum::name).collect(Collectors.toList());
         if (!stateNames.contains(passedState)) {
@@ -1,15 +1,29 @@
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.test.web.client.MockServerRestTemplateCustomizer;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.BookingClient;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
 import ru.practicum.shareit.exception.ValidationException;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 @ExtendWith(MockitoExtension.class)
 class BookingClientTest {
@@ -57,4 +71,80 @@ class BookingClientTest {
         assertThrows(IllegalArgumentException.class, () ->
                 client.getByOwnerId(1L, "ALL", 0, 0));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldThrowValidationExceptionWhenPagingByCursorWithWrongState() {
+        assertThrows(ValidationException.class, () ->
+                client.getPageByBookerId(1L, "UNKNOWN", "", 20));
+    }
+
+    @Test
+    void shouldThrowIllegalArgumentExceptionWhenPagingByCursorWithWrongSize() {
+        assertThrows(IllegalArgumentException.class, () ->
+                client.getPageByOwnerId(1L, "ALL", "", 0));
+    }
+
+    @Test
+    void shouldThrowValidationExceptionWhenBatchIsEmpty() {
+        assertThrows(ValidationException.class, () -> client.createBatch(1L, List.of()));
+    }
+
+    @Test
+    void shouldThrowValidationExceptionWhenBatchEntryHasWrongTime() {
+        BookingInputDto valid = BookingInputDto.builder()
+                .itemId(1L)
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .build();
+        BookingInputDto wrong = BookingInputDto.builder()
+                .itemId(2L)
+                .start(LocalDateTime.now().plusDays(2))
+                .end(LocalDateTime.now().plusDays(1))
+                .build();
+        assertThrows(ValidationException.class, () -> client.createBatch(1L, List.of(valid, wrong)));
+    }
+
+    @Test
+    void shouldThrowValidationExceptionWhenBulkApprovingWithoutOrWithBothSelectors() {
+        assertThrows(ValidationException.class, () ->
+                client.approveAll(1L, new BookingApprovalDto(), true));
+        assertThrows(ValidationException.class, () ->
+                client.approveAll(1L, new BookingApprovalDto(List.of(1L), 2L), true));
+    }
+
+    @Test
+    void shouldRelayExportedBookingsAsTheyAre() throws Exception {
+        MockServerRestTemplateCustomizer customizer = new MockServerRestTemplateCustomizer();
+        BookingClient streamingClient = new BookingClient("http://localhost:9090", new RestTemplateBuilder(customizer));
+        MockRestServiceServer server = customizer.getServer();
+        String ndjson = "{\"id\":2}\n{\"id\":1}\n";
+        server.expect(requestTo("http://localhost:9090/bookings/owner/export"))
+                .andExpect(header("X-Sharer-User-Id", "1"))
+                .andRespond(withSuccess(ndjson, MediaType.APPLICATION_NDJSON));
+
+        ResponseEntity<StreamingResponseBody> response = streamingClient.exportByOwnerId(1L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        assertEquals(ndjson, out.toString(StandardCharsets.UTF_8));
+        server.verify();
+    }
+
+    @Test
+    void shouldRelayErrorStatusOfExport() throws Exception {
+        MockServerRestTemplateCustomizer customizer = new MockServerRestTemplateCustomizer();
+        BookingClient streamingClient = new BookingClient("http://localhost:9090", new RestTemplateBuilder(customizer));
+        String error = "{\"error\":\"User with this ID is not found\"}";
+        customizer.getServer().expect(requestTo("http://localhost:9090/bookings/export"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON).body(error));
+
+        ResponseEntity<StreamingResponseBody> response = streamingClient.exportByBookerId(99L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals(error, out.toString(StandardCharsets.UTF_8));
+    }
+}
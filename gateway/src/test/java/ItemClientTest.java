@@ -2,7 +2,11 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.ItemClient;
+import ru.practicum.shareit.validators.Validator;
+
+import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -26,12 +30,43 @@ class ItemClientTest {
     @Test
     void shouldThrowIllegalArgumentExceptionWhenPassingWrongSizeWhileSearching() {
         assertThrows(IllegalArgumentException.class, () ->
-                client.search(1L, "ALL", 1, 0));
+                client.search(1L, "ALL", null, null, 1, 0));
     }
 
     @Test
     void shouldThrowIllegalArgumentExceptionWhenPassingWrongFromWhileSearching() {
         assertThrows(IllegalArgumentException.class, () ->
-                client.search(1L, "ALL", -1, 20));
+                client.search(1L, "ALL", null, null, -1, 20));
+    }
+
+    @Test
+    void shouldThrowIllegalArgumentExceptionWhenPassingWrongSizeForCatalog() {
+        assertThrows(IllegalArgumentException.class, () ->
+                client.getCatalog(1L, null, 0));
+    }
+
+    @Test
+    void shouldThrowIllegalArgumentExceptionWhenPassingWrongSizeForComments() {
+        assertThrows(IllegalArgumentException.class, () ->
+                client.getComments(1L, 1L, null, 0));
+    }
+
+    @Test
+    void shouldThrowValidationExceptionWhenAvailabilityRangeIsWrong() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        assertThrows(ValidationException.class, () ->
+                client.getAvailability(1L, 1L, from, from));
+        assertThrows(ValidationException.class, () ->
+                client.getAvailability(1L, 1L, from, from.plusDays(367)));
+    }
+
+    @Test
+    void shouldThrowValidationExceptionWhenSearchWindowIsWrong() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        assertThrows(ValidationException.class, () ->
+                Validator.searchWindowValidation(start, null));
+        assertThrows(ValidationException.class, () ->
+                Validator.searchWindowValidation(start, start));
+        assertDoesNotThrow(() -> Validator.searchWindowValidation(null, null));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,18 @@
+package ru.practicum.shareit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Re-runs the annotated transactional method when it fails with an optimistic locking conflict.
+ */
+@Documented
+@Retention(RUNTIME)
+@Target(METHOD)
+public @interface RetryOnConflict {
+    int attempts() default 3;
+}
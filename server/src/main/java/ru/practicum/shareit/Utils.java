@@ -7,4 +7,6 @@ import lombok.NoArgsConstructor;
 @Generated
 public class Utils {
     public static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String HAS_MORE_HEADER = "X-Has-More";
 }
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+
+import java.util.List;
+
+public interface BookingArchiveRepository extends JpaRepository<ArchivedBooking, Long> {
+    String DTO = "select new ru.practicum.shareit.booking.dto.BookingDto(b.id, b.start, b.end, b.status, " +
+            "i.id, i.name, i.description, i.available, r.id, u.id, u.name) " +
+            "from ArchivedBooking as b join b.item as i left join i.request as r join b.booker as u ";
+
+    @Query(DTO + "where u.id = ?1")
+    List<BookingDto> findDtoByBookerId(long bookerId, Pageable pageable);
+
+    @Query(DTO + "where b.ownerId = ?1")
+    List<BookingDto> findDtoByOwnerId(long ownerId, Pageable pageable);
+
+    boolean existsByBookerIdAndItemId(long bookerId, long itemId);
+}
@@ -1,15 +1,30 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingCreationDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPage;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.user.service.UserService;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static ru.practicum.shareit.Utils.NEXT_CURSOR_HEADER;
 import static ru.practicum.shareit.Utils.USER_ID_HEADER;
 
 @RestController
@@ -17,7 +32,11 @@ import static ru.practicum.shareit.Utils.USER_ID_HEADER;
 @RequiredArgsConstructor
 @RequestMapping(path = "/bookings")
 public class BookingController {
+    private static final int EXPORT_FLUSH_ROWS = 100;
+
     private final BookingService service;
+    private final UserService userService;
+    private final ObjectMapper mapper;
 
     @PostMapping
     public BookingDto create(@RequestHeader(value = USER_ID_HEADER) Long userId,
@@ -26,6 +45,13 @@ public class BookingController {
         return service.create(userId, dto);
     }
 
+    @PostMapping("/batch")
+    public List<BookingBatchResultDto> createBatch(@RequestHeader(value = USER_ID_HEADER) Long userId,
+                                                   @RequestBody List<BookingCreationDto> dtos) {
+        log.info("Batch creation request of {} bookings with userId {}.", dtos.size(), userId);
+        return service.createBatch(userId, dtos);
+    }
+
     @PatchMapping("{bookingId}")
     public BookingDto approve(@RequestHeader(value = USER_ID_HEADER) Long userId,
                               @PathVariable Long bookingId,
@@ -34,6 +60,58 @@ public class BookingController {
         return service.approve(userId, bookingId, isApproved);
     }
 
+    @PatchMapping("/bulk")
+    public List<Long> approveAll(@RequestHeader(value = USER_ID_HEADER) Long userId,
+                                 @RequestParam(name = "approved") Boolean isApproved,
+                                 @RequestBody BookingApprovalDto dto) {
+        log.info("Bulk approve request by user {}.", userId);
+        return service.approveAll(userId, dto, isApproved);
+    }
+
+    @GetMapping("/counts")
+    public BookingCountsDto countUserBookings(@RequestHeader(value = USER_ID_HEADER) Long bookerId) {
+        log.info("Count user's bookings request received.");
+        return service.countByBookerId(bookerId);
+    }
+
+    @GetMapping("/owner/counts")
+    public BookingCountsDto countOwnerBookings(@RequestHeader(value = USER_ID_HEADER) Long ownerId) {
+        log.info("Count owner's bookings request received.");
+        return service.countByOwnerId(ownerId);
+    }
+
+    @GetMapping("/history")
+    public List<BookingDto> getUserArchivedBookings(@RequestHeader(value = USER_ID_HEADER) Long bookerId,
+                                                    @RequestParam(defaultValue = "0") Integer from,
+                                                    @RequestParam(defaultValue = "10") Integer size) {
+        log.info("Get user's archived bookings request received.");
+        return service.getArchivedByBookerId(bookerId, from, size);
+    }
+
+    @GetMapping("/owner/history")
+    public List<BookingDto> getOwnerArchivedBookings(@RequestHeader(value = USER_ID_HEADER) Long ownerId,
+                                                     @RequestParam(defaultValue = "0") Integer from,
+                                                     @RequestParam(defaultValue = "10") Integer size) {
+        log.info("Get owner's archived bookings request received.");
+        return service.getArchivedByOwnerId(ownerId, from, size);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUserBookings(
+            @RequestHeader(value = USER_ID_HEADER) Long bookerId) {
+        log.info("Export user's bookings request received.");
+        userService.getById(bookerId);
+        return toNdjson(out -> service.exportByBookerId(bookerId, toNdjsonLines(out)));
+    }
+
+    @GetMapping(value = "/owner/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportOwnerBookings(
+            @RequestHeader(value = USER_ID_HEADER) Long ownerId) {
+        log.info("Export owner's bookings request received.");
+        userService.getById(ownerId);
+        return toNdjson(out -> service.exportByOwnerId(ownerId, toNdjsonLines(out)));
+    }
+
     @GetMapping("{bookingId}")
     public BookingDto getBooking(@RequestHeader(value = USER_ID_HEADER) Long userId,
                                  @PathVariable Long bookingId) {
@@ -42,20 +120,71 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingDto> getUserBookings(@RequestHeader(value = USER_ID_HEADER) Long bookerId,
-                                            @RequestParam(name = "state", defaultValue = "ALL") String state,
-                                            @RequestParam(defaultValue = "0") Integer from,
-                                            @RequestParam(defaultValue = "10") Integer size) {
+    public ResponseEntity<List<BookingDto>> getUserBookings(@RequestHeader(value = USER_ID_HEADER) Long bookerId,
+                                                            @RequestParam(name = "state", defaultValue = "ALL") String state,
+                                                            @RequestParam(defaultValue = "0") Integer from,
+                                                            @RequestParam(defaultValue = "10") Integer size,
+                                                            @RequestParam(required = false) String cursor) {
         log.info("Get user's booking request received.");
-        return service.getByBookerId(bookerId, state, from, size);
+        if (cursor == null) {
+            return ResponseEntity.ok(service.getByBookerId(bookerId, state, from, size));
+        }
+        return toResponse(service.getPageByBookerId(bookerId, state, cursor, size));
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> getOwnerBookings(@RequestHeader(value = USER_ID_HEADER) Long ownerId,
-                                             @RequestParam(name = "state", defaultValue = "ALL") String state,
-                                             @RequestParam(defaultValue = "0") Integer from,
-                                             @RequestParam(defaultValue = "10") Integer size) {
+    public ResponseEntity<List<BookingDto>> getOwnerBookings(@RequestHeader(value = USER_ID_HEADER) Long ownerId,
+                                                             @RequestParam(name = "state", defaultValue = "ALL") String state,
+                                                             @RequestParam(defaultValue = "0") Integer from,
+                                                             @RequestParam(defaultValue = "10") Integer size,
+                                                             @RequestParam(required = false) String cursor) {
         log.info("Get owner's bookings request received.");
-        return service.getByOwnerId(ownerId, state, from, size);
+        if (cursor == null) {
+            return ResponseEntity.ok(service.getByOwnerId(ownerId, state, from, size));
+        }
+        return toResponse(service.getPageByOwnerId(ownerId, state, cursor, size));
+    }
+
+    /**
+     * The user is looked up before streaming starts, since errors can't change the status once rows are sent.
+     */
+    private ResponseEntity<StreamingResponseBody> toNdjson(StreamingResponseBody body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    private Consumer<BookingDto> toNdjsonLines(OutputStream out) {
+        return new NdjsonWriter(mapper.writerFor(BookingDto.class), out);
+    }
+
+    private ResponseEntity<List<BookingDto>> toResponse(BookingPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getBookings());
+    }
+
+    /**
+     * Writes every booking as one JSON line, flushing the first row right away and then
+     * every {@code EXPORT_FLUSH_ROWS} rows so the client starts receiving data immediately.
+     */
+    @RequiredArgsConstructor
+    private static final class NdjsonWriter implements Consumer<BookingDto> {
+        private final ObjectWriter writer;
+        private final OutputStream out;
+        private long rows;
+
+        @Override
+        public void accept(BookingDto booking) {
+            try {
+                out.write(writer.writeValueAsBytes(booking));
+                out.write('\n');
+                if (rows++ % EXPORT_FLUSH_ROWS == 0) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
     }
 }
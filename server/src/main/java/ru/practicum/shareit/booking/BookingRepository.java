@@ -1,79 +1,299 @@
 package ru.practicum.shareit.booking;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+public interface BookingRepository extends JpaRepository<Booking, Long>, ItemBookingsRepository {
+    String SEEK = "and b.start <= ?2 and (b.start < ?2 or b.id < ?3) ";
+    String COUNTS = "select new ru.practicum.shareit.booking.dto.BookingCountsDto(count(b), " +
+            "coalesce(sum(case when current_timestamp between b.start and b.end then 1 else 0 end), 0), " +
+            "coalesce(sum(case when current_timestamp > b.end then 1 else 0 end), 0), " +
+            "coalesce(sum(case when current_timestamp < b.start then 1 else 0 end), 0), " +
+            "coalesce(sum(case when b.status = ru.practicum.shareit.booking.model.Status.WAITING then 1 else 0 end), 0), " +
+            "coalesce(sum(case when b.status = ru.practicum.shareit.booking.model.Status.REJECTED then 1 else 0 end), 0)) " +
+            "from Booking as b ";
+    String DTO = "select new ru.practicum.shareit.booking.dto.BookingDto(b.id, b.start, b.end, b.status, " +
+            "i.id, i.name, i.description, i.available, r.id, u.id, u.name) " +
+            "from Booking as b join b.item as i left join i.request as r join b.booker as u ";
+    String EXPORT_FETCH_SIZE = "500";
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
     // all
+    @EntityGraph(attributePaths = {"item", "booker"})
     List<Booking> findAllByBookerId(long bookerId, Pageable pageable);
 
     @Query("select b from Booking as b " +
-            "where b.item.owner.id = ?1 " +
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.ownerId = ?1 " +
             "order by b.start desc")
     List<Booking> findAllByOwnerId(long ownerId, Pageable pageable);
 
     // current
     @Query("select b from Booking as b " +
-            "where b.booker.id = ?1 " +
+            "join fetch b.item " +
+            "join fetch b.booker as u " +
+            "where u.id = ?1 " +
             "and current_timestamp between b.start and b.end " +
             "order by b.start desc")
     List<Booking> findAllByBookerIdAndStateCurrent(long bookerId, Pageable pageable);
 
     @Query("select b from Booking as b " +
-            "where b.item.owner.id = ?1 " +
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.ownerId = ?1 " +
             "and current_timestamp between b.start and b.end " +
             "order by b.start desc")
     List<Booking> findAllByOwnerIdAndStateCurrent(long ownerId, Pageable pageable);
 
     // past
     @Query("select b from Booking as b " +
-            "where b.booker.id = ?1 " +
+            "join fetch b.item " +
+            "join fetch b.booker as u " +
+            "where u.id = ?1 " +
             "and current_timestamp > b.end " +
             "order by b.start desc")
     List<Booking> findAllByBookerIdAndStatePast(long bookerId, Pageable pageable);
 
     @Query("select b from Booking as b " +
-            "where b.item.owner.id = ?1 " +
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.ownerId = ?1 " +
             "and current_timestamp > b.end " +
             "order by b.start desc")
     List<Booking> findAllByOwnerIdAndStatePast(long ownerId, Pageable pageable);
 
     // future
     @Query("select b from Booking as b " +
-            "where b.booker.id = ?1 " +
+            "join fetch b.item " +
+            "join fetch b.booker as u " +
+            "where u.id = ?1 " +
             "and current_timestamp < b.start " +
             "order by b.start desc")
     List<Booking> findAllByBookerIdAndStateFuture(long bookerId, Pageable pageable);
 
     @Query("select b from Booking as b " +
-            "where b.item.owner.id = ?1 " +
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.ownerId = ?1 " +
             "and current_timestamp < b.start " +
             "order by b.start desc")
     List<Booking> findAllByOwnerIdAndStateFuture(long ownerId, Pageable pageable);
 
     // waiting
+    @EntityGraph(attributePaths = {"item", "booker"})
     List<Booking> findAllByBookerIdAndStatusOrderByStartDesc(long bookerId, Status status, Pageable pageable);
 
     @Query("select b from Booking as b " +
-            "where b.item.owner.id = ?1 " +
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.ownerId = ?1 " +
             "and b.status = ?2 " +
             "order by b.start desc")
     List<Booking> findAllByOwnerIdAndStatus(long ownerId, Status status, Pageable pageable);
 
-    Optional<Booking> findFirstByItemIdAndStartBeforeAndStatusOrderByEndDesc(long itemId,
-                                                                             LocalDateTime time,
-                                                                             Status status);
+    // keyset pages, ordered by (start, id) descending
+    @Query("select b from Booking as b " +
+            "join fetch b.item " +
+            "join fetch b.booker as u " +
+            "where u.id = ?1 " +
+            SEEK +
+            "order by b.start desc, b.id desc")
+    List<Booking> findPageByBookerId(long bookerId, LocalDateTime start, long id, Pageable pageable);
+
+    @Query("select b from Booking as b " +
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.ownerId = ?1 " +
+            SEEK +
+            "order by b.start desc, b.id desc")
+    List<Booking> findPageByOwnerId(long ownerId, LocalDateTime start, long id, Pageable pageable);
+
+    @Query("select b from Booking as b " +
+            "join fetch b.item " +
+            "join fetch b.booker as u " +
+            "where u.id = ?1 " +
+            "and current_timestamp between b.start and b.end " +
+            SEEK +
+            "order by b.start desc, b.id desc")
+    List<Booking> findPageByBookerIdAndStateCurrent(long bookerId, LocalDateTime start, long id, Pageable pageable);
+
+    @Query("select b from Booking as b " +
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.ownerId = ?1 " +
+            "and current_timestamp between b.start and b.end " +
+            SEEK +
+            "order by b.start desc, b.id desc")
+    List<Booking> findPageByOwnerIdAndStateCurrent(long ownerId, LocalDateTime start, long id, Pageable pageable);
+
+    @Query("select b from Booking as b " +
+            "join fetch b.item " +
+            "join fetch b.booker as u " +
+            "where u.id = ?1 " +
+            "and current_timestamp > b.end " +
+            SEEK +
+            "order by b.start desc, b.id desc")
+    List<Booking> findPageByBookerIdAndStatePast(long bookerId, LocalDateTime start, long id, Pageable pageable);
+
+    @Query("select b from Booking as b " +
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.ownerId = ?1 " +
+            "and current_timestamp > b.end " +
+            SEEK +
+            "order by b.start desc, b.id desc")
+    List<Booking> findPageByOwnerIdAndStatePast(long ownerId, LocalDateTime start, long id, Pageable pageable);
+
+    @Query("select b from Booking as b " +
+            "join fetch b.item " +
+            "join fetch b.booker as u " +
+            "where u.id = ?1 " +
+            "and current_timestamp < b.start " +
+            SEEK +
+            "order by b.start desc, b.id desc")
+    List<Booking> findPageByBookerIdAndStateFuture(long bookerId, LocalDateTime start, long id, Pageable pageable);
+
+    @Query("select b from Booking as b " +
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.ownerId = ?1 " +
+            "and current_timestamp < b.start " +
+            SEEK +
+            "order by b.start desc, b.id desc")
+    List<Booking> findPageByOwnerIdAndStateFuture(long ownerId, LocalDateTime start, long id, Pageable pageable);
+
+    @Query("select b from Booking as b " +
+            "join fetch b.item " +
+            "join fetch b.booker as u " +
+            "where u.id = ?1 " +
+            "and b.status = ?4 " +
+            SEEK +
+            "order by b.start desc, b.id desc")
+    List<Booking> findPageByBookerIdAndStatus(long bookerId, LocalDateTime start, long id, Status status,
+                                              Pageable pageable);
+
+    @Query("select b from Booking as b " +
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.ownerId = ?1 " +
+            "and b.status = ?4 " +
+            SEEK +
+            "order by b.start desc, b.id desc")
+    List<Booking> findPageByOwnerIdAndStatus(long ownerId, LocalDateTime start, long id, Status status,
+                                             Pageable pageable);
+
+    @Query(COUNTS + "where b.booker.id = ?1")
+    BookingCountsDto countStatesByBookerId(long bookerId);
+
+    @Query(COUNTS + "where b.ownerId = ?1")
+    BookingCountsDto countStatesByOwnerId(long ownerId);
+
+    @Query(DTO + "where b.id = ?1 and (u.id = ?2 or b.ownerId = ?2)")
+    Optional<BookingDto> findDtoByIdAndUserId(long bookingId, long userId);
+
+    // full history export, rows are fetched from the cursor EXPORT_FETCH_SIZE at a time
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(DTO + "where u.id = ?1 order by b.start desc, b.id desc")
+    Stream<BookingDto> streamDtoByBookerId(long bookerId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(DTO + "where b.ownerId = ?1 order by b.start desc, b.id desc")
+    Stream<BookingDto> streamDtoByOwnerId(long ownerId);
+
+    @Query("select new ru.practicum.shareit.booking.dto.BookingShortDto(b.id, b.start, b.end, b.booker.id) " +
+            "from Booking as b " +
+            "where b.item.id = ?1 " +
+            "and b.start < ?2 " +
+            "and b.status = ?3 " +
+            "order by b.end desc")
+    List<BookingShortDto> findLastByItemId(long itemId, LocalDateTime time, Status status, Pageable pageable);
+
+    @Query("select new ru.practicum.shareit.booking.dto.BookingShortDto(b.id, b.start, b.end, b.booker.id) " +
+            "from Booking as b " +
+            "where b.item.id = ?1 " +
+            "and b.start > ?2 " +
+            "and b.status = ?3 " +
+            "order by b.start asc")
+    List<BookingShortDto> findNextByItemId(long itemId, LocalDateTime time, Status status, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking as b " +
+            "where b.id in ?1 " +
+            "and b.ownerId = ?2 " +
+            "and b.status = ru.practicum.shareit.booking.model.Status.WAITING " +
+            "order by b.id")
+    List<Booking> findWaitingByIdInAndOwnerId(Collection<Long> bookingIds, long ownerId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking as b " +
+            "where b.item.id = ?1 " +
+            "and b.ownerId = ?2 " +
+            "and b.status = ru.practicum.shareit.booking.model.Status.WAITING " +
+            "order by b.id")
+    List<Booking> findWaitingByItemIdAndOwnerId(long itemId, long ownerId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking as b " +
+            "where b.status = ru.practicum.shareit.booking.model.Status.WAITING " +
+            "and b.start < ?1 " +
+            "order by b.start, b.id")
+    List<Booking> findExpiredWaiting(LocalDateTime time, Pageable pageable);
+
+    @Query("select min(b.start) from Booking as b " +
+            "where b.status = ru.practicum.shareit.booking.model.Status.WAITING " +
+            "and b.start < ?1")
+    Optional<LocalDateTime> findOldestExpiredWaitingStart(LocalDateTime time);
+
+    @Query("select distinct b.item.id from Booking as b where b.id in ?1")
+    List<Long> findItemIdsByIdIn(Collection<Long> bookingIds);
+
+    @Query("select b.id from Booking as b " +
+            "where b.id in ?1 " +
+            "and exists (select a.id from Booking as a " +
+            "where a.item = b.item " +
+            "and a.status = ru.practicum.shareit.booking.model.Status.APPROVED " +
+            "and a.start < b.end " +
+            "and a.end > b.start)")
+    List<Long> findIdsOverlappingApproved(Collection<Long> bookingIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking as b " +
+            "set b.status = ?2, b.version = b.version + 1 " +
+            "where b.id in ?1 " +
+            "and b.status = ru.practicum.shareit.booking.model.Status.WAITING")
+    int updateWaitingStatusByIdIn(Collection<Long> bookingIds, Status status);
+
+    @Query("select count(b) > 0 from Booking as b " +
+            "where b.item.id = ?1 " +
+            "and b.status = ru.practicum.shareit.booking.model.Status.APPROVED " +
+            "and b.start < ?3 " +
+            "and b.end > ?2 " +
+            "and b.id <> ?4")
+    boolean existsApprovedOverlap(long itemId, LocalDateTime start, LocalDateTime end, long bookingId);
+
+    boolean existsByIdAndStatusIn(long bookingId, Collection<Status> statuses);
 
-    Optional<Booking> findFirstByItemIdAndStartAfterAndStatusOrderByStartAsc(long itemId,
-                                                                             LocalDateTime time,
-                                                                             Status status);
+    List<Booking> findAllByItemIdAndStatusInAndEndAfter(long itemId, Collection<Status> statuses, LocalDateTime end);
 
     boolean existsByBookerIdAndItemIdAndEndBefore(long bookerId, long itemId, LocalDateTime end);
 }
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.dto.ItemBookingsDto;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ItemBookingsRepository {
+    /**
+     * Last and next APPROVED bookings of each of the items relative to the time, in one query.
+     * Items without approved bookings on either side are left out.
+     */
+    List<ItemBookingsDto> findLastAndNextApproved(Collection<Long> itemIds, LocalDateTime time);
+}
@@ -0,0 +1,71 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.ItemBookingsDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Looks up the last and next approved booking of every item with correlated {@code order by ... limit 1}
+ * subqueries, which read one index entry per item and side instead of ranking the item's whole history:
+ * the last one is the latest ending among those already started, the next one the earliest starting after it.
+ * The last booking may already have been moved to the archive, so that side reads bookings_history.
+ */
+public class ItemBookingsRepositoryImpl implements ItemBookingsRepository {
+    private static final String LAST_AND_NEXT = "select i.id, " +
+            "l.id as last_id, l.start_time as last_start, l.end_time as last_end, l.booker_id as last_booker_id, " +
+            "n.id as next_id, n.start_time as next_start, n.end_time as next_end, n.booker_id as next_booker_id " +
+            "from items as i " +
+            "left join bookings_history as l on l.item_id = i.id and l.id = (select b.id from bookings_history as b " +
+            "where b.item_id = i.id and b.status = 'APPROVED' and b.start_time < :time " +
+            "order by b.end_time desc, b.id desc " +
+            "limit 1) " +
+            "left join bookings as n on n.item_id = i.id and n.id = (select b.id from bookings as b " +
+            "where b.item_id = i.id and b.status = 'APPROVED' and b.start_time > :time " +
+            "order by b.start_time, b.id " +
+            "limit 1) " +
+            "where i.id in (:itemIds) " +
+            "and (l.id is not null or n.id is not null)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ItemBookingsDto> findLastAndNextApproved(Collection<Long> itemIds, LocalDateTime time) {
+        if (itemIds.isEmpty()) {
+            return List.of();
+        }
+
+        List<Object[]> rows = entityManager.createNativeQuery(LAST_AND_NEXT)
+                .setParameter("itemIds", itemIds)
+                .setParameter("time", time)
+                .getResultList();
+
+        List<ItemBookingsDto> bookings = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            bookings.add(ItemBookingsDto.builder()
+                    .itemId(((Number) row[0]).longValue())
+                    .lastBooking(toBooking(row, 1))
+                    .nextBooking(toBooking(row, 5))
+                    .build());
+        }
+        return bookings;
+    }
+
+    private static BookingShortDto toBooking(Object[] row, int offset) {
+        if (row[offset] == null) {
+            return null;
+        }
+        return new BookingShortDto(((Number) row[offset]).longValue(),
+                ((Timestamp) row[offset + 1]).toLocalDateTime(),
+                ((Timestamp) row[offset + 2]).toLocalDateTime(),
+                ((Number) row[offset + 3]).longValue());
+    }
+}
@@ -9,6 +9,7 @@ import ru.practicum.shareit.item.dto.ItemShortDto;
 import ru.practicum.shareit.user.dto.UserShortDto;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 @Data
 @AllArgsConstructor
@@ -21,4 +22,12 @@ public class BookingDto {
     private ItemShortDto item;
     private UserShortDto booker;
     private Status status;
+
+    public BookingDto(long id, LocalDateTime start, LocalDateTime end, Status status,
+                      long itemId, String itemName, String itemDescription, boolean itemAvailable, Long requestId,
+                      long bookerId, String bookerName) {
+        this(id, start.truncatedTo(ChronoUnit.SECONDS), end,
+                new ItemShortDto(itemId, itemName, itemDescription, itemAvailable, requestId),
+                new UserShortDto(bookerId, bookerName), status);
+    }
 }
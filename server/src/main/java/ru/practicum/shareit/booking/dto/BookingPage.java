@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.Generated;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Generated
+public class BookingPage {
+    private List<BookingDto> bookings;
+    private String nextCursor;
+}
@@ -19,7 +19,8 @@ import java.util.Objects;
 @Table(name = "bookings")
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_id_seq")
+    @SequenceGenerator(name = "bookings_id_seq", sequenceName = "bookings_id_seq", allocationSize = 50)
     private long id;
     @Column(name = "start_time")
     private LocalDateTime start;
@@ -31,9 +32,18 @@ public class Booking {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booker_id")
     private User booker;
+    @Column(name = "owner_id")
+    private long ownerId;
     @Column(name = "status")
     @Enumerated(EnumType.STRING)
     private Status status;
+    @Version
+    private long version;
+
+    @PrePersist
+    private void copyOwnerFromItem() {
+        ownerId = item.getOwner().getId();
+    }
 
     @Override
     public boolean equals(Object o) {
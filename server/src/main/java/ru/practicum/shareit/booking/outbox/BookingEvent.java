@@ -0,0 +1,82 @@
+package ru.practicum.shareit.booking.outbox;
+
+import lombok.*;
+import ru.practicum.shareit.Generated;
+import ru.practicum.shareit.booking.model.Booking;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Generated
+@Entity
+@Table(name = "booking_events")
+public class BookingEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_events_id_seq")
+    @SequenceGenerator(name = "booking_events_id_seq", sequenceName = "booking_events_id_seq", allocationSize = 50)
+    private long id;
+    @Column(name = "type")
+    @Enumerated(EnumType.STRING)
+    private BookingEventType type;
+    @Column(name = "booking_id")
+    private long bookingId;
+    @Column(name = "item_id")
+    private long itemId;
+    @Column(name = "booker_id")
+    private long bookerId;
+    @Column(name = "owner_id")
+    private long ownerId;
+    @Column(name = "start_time")
+    private LocalDateTime start;
+    @Column(name = "end_time")
+    private LocalDateTime end;
+    @Column(name = "created")
+    private LocalDateTime created;
+    @Column(name = "booking_version")
+    private long bookingVersion;
+
+    /**
+     * Status changes are recorded before the booking's version is incremented, so their event carries the next one.
+     */
+    public static BookingEvent of(Booking booking, BookingEventType type) {
+        return BookingEvent.builder()
+                .type(type)
+                .bookingId(booking.getId())
+                .itemId(booking.getItem().getId())
+                .bookerId(booking.getBooker().getId())
+                .ownerId(booking.getOwnerId())
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .created(LocalDateTime.now())
+                .bookingVersion(type == BookingEventType.CREATED ? booking.getVersion() : booking.getVersion() + 1)
+                .build();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BookingEvent)) return false;
+        BookingEvent event = (BookingEvent) o;
+        return getId() == event.getId();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "BookingEvent{" +
+                "id=" + id +
+                ", type=" + type +
+                ", bookingId=" + bookingId +
+                '}';
+    }
+}
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.outbox;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BookingEventClaimRepository {
+    /**
+     * Claims up to {@code limit} of the oldest unclaimed events for the claimant until the time and returns them,
+     * the events of each booking ordered by booking version. An event is claimed only together with all earlier
+     * events of its booking, so one claimed elsewhere or beyond the limit leaves it for later.
+     */
+    List<BookingEvent> claim(String claimant, LocalDateTime now, LocalDateTime until, int limit);
+
+    /**
+     * Returns the events still claimed by the claimant to the next poll.
+     */
+    void release(String claimant);
+}
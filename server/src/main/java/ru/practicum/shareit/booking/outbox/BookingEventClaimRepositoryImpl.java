@@ -0,0 +1,65 @@
+package ru.practicum.shareit.booking.outbox;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The claim is a conditional update committed before the events are published. Concurrent claims of the same rows
+ * are serialized by the row locks and the loser skips them, since the repeated condition no longer holds for it.
+ */
+public class BookingEventClaimRepositoryImpl implements BookingEventClaimRepository {
+    private static final String CANDIDATES = "select c.id from booking_events as c " +
+            "where (c.claimed_until is null or c.claimed_until < :now) " +
+            "order by c.id " +
+            "limit :limit";
+    private static final String CLAIM = "update booking_events " +
+            "set claimed_by = :claimant, claimed_until = :until " +
+            "where id in (" +
+            "select e.id from booking_events as e " +
+            "where e.id in (" + CANDIDATES + ") " +
+            "and not exists (select 1 from booking_events as p " +
+            "where p.booking_id = e.booking_id " +
+            "and (p.booking_version < e.booking_version or p.booking_version = e.booking_version and p.id < e.id) " +
+            "and p.id not in (" + CANDIDATES + "))) " +
+            "and (claimed_until is null or claimed_until < :now)";
+    private static final String CLAIMED = "select * from booking_events " +
+            "where claimed_by = :claimant " +
+            "order by booking_id, booking_version, id";
+    private static final String RELEASE = "update booking_events " +
+            "set claimed_by = null, claimed_until = null " +
+            "where claimed_by = :claimant";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<BookingEvent> claim(String claimant, LocalDateTime now, LocalDateTime until, int limit) {
+        int claimed = entityManager.createNativeQuery(CLAIM)
+                .setParameter("claimant", claimant)
+                .setParameter("now", now)
+                .setParameter("until", until)
+                .setParameter("limit", limit)
+                .executeUpdate();
+        if (claimed == 0) {
+            return List.of();
+        }
+
+        return entityManager.createNativeQuery(CLAIMED, BookingEvent.class)
+                .setParameter("claimant", claimant)
+                .getResultList();
+    }
+
+    @Override
+    @Transactional
+    public void release(String claimant) {
+        entityManager.createNativeQuery(RELEASE)
+                .setParameter("claimant", claimant)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,109 @@
+package ru.practicum.shareit.booking.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the outbox in batches of {@code shareit.outbox.batch-size} events. A batch is split
+ * into {@code shareit.outbox.parallelism} partitions by booking ID, so events of one booking are published
+ * in the order of the booking versions they lead to, and partitions are published concurrently. Events are
+ * deleted only after the sink accepted them; a failure stops its partition and the rest is retried on the next poll.
+ * A batch is claimed for {@code shareit.outbox.lease} first, so several instances don't publish the same events,
+ * and an event is claimed only together with the earlier events of its booking.
+ */
+@Slf4j
+@Component
+public class BookingEventDispatcher {
+    private final BookingEventRepository eventRepository;
+    private final BookingEventSink sink;
+    private final int batchSize;
+    private final int parallelism;
+    private final Duration lease;
+    private final ExecutorService executor;
+
+    public BookingEventDispatcher(BookingEventRepository eventRepository,
+                                  BookingEventSink sink,
+                                  @Value("${shareit.outbox.batch-size:100}") int batchSize,
+                                  @Value("${shareit.outbox.parallelism:4}") int parallelism,
+                                  @Value("${shareit.outbox.lease:PT1M}") Duration lease) {
+        this.eventRepository = eventRepository;
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.lease = lease;
+        this.executor = Executors.newFixedThreadPool(parallelism);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.outbox.poll-interval:PT1S}",
+            initialDelayString = "${shareit.outbox.poll-interval:PT1S}")
+    public void poll() {
+        int dispatched;
+        do {
+            dispatched = dispatch();
+        } while (dispatched == batchSize);
+    }
+
+    /**
+     * Claims and publishes one batch of the oldest events and returns how many of them were delivered.
+     */
+    public int dispatch() {
+        String claimant = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingEvent> events = eventRepository.claim(claimant, now, now.plus(lease), batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        Collection<List<BookingEvent>> partitions = events.stream()
+                .collect(Collectors.groupingBy(event -> Math.floorMod(event.getBookingId(), parallelism)))
+                .values();
+        List<CompletableFuture<List<Long>>> deliveries = partitions.stream()
+                .map(partition -> CompletableFuture.supplyAsync(() -> publish(partition), executor))
+                .collect(Collectors.toList());
+
+        List<Long> delivered = new ArrayList<>();
+        deliveries.forEach(delivery -> delivered.addAll(delivery.join()));
+        if (!delivered.isEmpty()) {
+            eventRepository.deleteAllByIdInBatch(delivered);
+        }
+        if (delivered.size() < events.size()) {
+            eventRepository.release(claimant);
+        }
+
+        log.debug("{} of {} booking events dispatched.", delivered.size(), events.size());
+        return delivered.size();
+    }
+
+    private List<Long> publish(List<BookingEvent> partition) {
+        List<Long> delivered = new ArrayList<>(partition.size());
+        for (BookingEvent event : partition) {
+            try {
+                sink.publish(event);
+            } catch (RuntimeException e) {
+                log.warn("Booking event {} is not published and will be retried: {}", event, e.getMessage());
+                break;
+            }
+            delivered.add(event.getId());
+        }
+        return delivered;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
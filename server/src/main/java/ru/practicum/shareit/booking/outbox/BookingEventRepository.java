@@ -0,0 +1,6 @@
+package ru.practicum.shareit.booking.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface BookingEventRepository extends JpaRepository<BookingEvent, Long>, BookingEventClaimRepository {
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking.outbox;
+
+/**
+ * Destination of dispatched booking events. Delivery is at least once, so implementations
+ * should tolerate duplicates (e.g. by event ID). Throwing keeps the event in the outbox for a retry.
+ */
+public interface BookingEventSink {
+    void publish(BookingEvent event);
+}
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Writes booking lifecycle events into the outbox table as part of the caller's transaction,
+ * so an event exists if and only if the booking change it describes was committed.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingOutbox {
+    private final BookingEventRepository eventRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Booking booking, BookingEventType type) {
+        eventRepository.save(BookingEvent.of(booking, type));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(Collection<Booking> bookings, BookingEventType type) {
+        eventRepository.saveAll(bookings.stream()
+                .map(booking -> BookingEvent.of(booking, type))
+                .collect(Collectors.toList()));
+    }
+}
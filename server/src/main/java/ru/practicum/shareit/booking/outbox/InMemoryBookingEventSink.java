@@ -0,0 +1,26 @@
+package ru.practicum.shareit.booking.outbox;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Component
+@ConditionalOnProperty(name = "shareit.outbox.sink", havingValue = "memory")
+public class InMemoryBookingEventSink implements BookingEventSink {
+    private final List<BookingEvent> events = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(BookingEvent event) {
+        events.add(event);
+    }
+
+    public List<BookingEvent> getEvents() {
+        return List.copyOf(events);
+    }
+
+    public void clear() {
+        events.clear();
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.outbox.sink", havingValue = "logging", matchIfMissing = true)
+public class LoggingBookingEventSink implements BookingEventSink {
+    @Override
+    public void publish(BookingEvent event) {
+        log.info("Booking event {} published.", event);
+    }
+}
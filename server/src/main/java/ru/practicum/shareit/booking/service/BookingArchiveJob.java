@@ -0,0 +1,127 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingArchiveRepository;
+
+import java.time.LocalDate;
+
+/**
+ * Maintains the bookings history. On Postgres, where bookings are range partitioned by end time,
+ * it creates monthly partitions {@code shareit.archive.partitions-ahead} months ahead and moves whole
+ * partitions older than {@code shareit.archive.retention-months} into bookings_archive. Partitions are detached
+ * in a short transaction first and then copied and dropped one per transaction, so bookings is only locked
+ * exclusively for the detach. Other databases have a single bookings table, so old rows are copied into
+ * the archive and deleted instead.
+ */
+@Slf4j
+@Component
+public class BookingArchiveJob {
+    private static final String COPY_ENDED_BEFORE = "insert into bookings_archive " +
+            "(id, item_id, booker_id, owner_id, status, start_time, end_time, version) " +
+            "select id, item_id, booker_id, owner_id, status, start_time, end_time, version " +
+            "from bookings where end_time < ?";
+    private static final String DELETE_ENDED_BEFORE = "delete from bookings where end_time < ?";
+
+    private final BookingArchiveRepository archiveRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean partitioned;
+    private final int partitionsAhead;
+    private final int retentionMonths;
+    private final Counter archived;
+
+    public BookingArchiveJob(BookingArchiveRepository archiveRepository,
+                             JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${spring.datasource.url}") String datasourceUrl,
+                             @Value("${shareit.archive.partitions-ahead:3}") int partitionsAhead,
+                             @Value("${shareit.archive.retention-months:12}") int retentionMonths) {
+        this.archiveRepository = archiveRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.partitioned = DatabaseDriver.fromJdbcUrl(datasourceUrl) == DatabaseDriver.POSTGRESQL;
+        this.partitionsAhead = partitionsAhead;
+        this.retentionMonths = retentionMonths;
+        this.archived = Counter.builder("bookings.archived")
+                .description("Bookings moved to the archive")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${shareit.archive.cron:0 0 3 * * *}")
+    public void run() {
+        LocalDate today = LocalDate.now();
+        createPartitions(today);
+        archive(today);
+    }
+
+    /**
+     * Makes sure partitions exist from the current month up to {@code partitionsAhead} months ahead.
+     */
+    public int createPartitions(LocalDate today) {
+        if (!partitioned) {
+            return 0;
+        }
+
+        int created = 0;
+        for (int i = 0; i <= partitionsAhead; i++) {
+            LocalDate month = today.withDayOfMonth(1).plusMonths(i);
+            Boolean isCreated = transactionTemplate.execute(status ->
+                    jdbcTemplate.queryForObject("select create_bookings_partition(?)", Boolean.class, month));
+            if (Boolean.TRUE.equals(isCreated)) {
+                log.info("Bookings partition for {} created.", month);
+                created++;
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Archives bookings that ended before the first day of the month {@code retentionMonths} ago.
+     */
+    public long archive(LocalDate today) {
+        LocalDate cutoff = today.withDayOfMonth(1).minusMonths(retentionMonths);
+        long count = partitioned ? archivePartitions(cutoff) : archiveRows(cutoff);
+
+        archived.increment(count);
+        if (count > 0) {
+            log.info("{} bookings ended before {} archived.", count, cutoff);
+        }
+        return count;
+    }
+
+    private long archivePartitions(LocalDate cutoff) {
+        Integer detached = transactionTemplate.execute(status ->
+                jdbcTemplate.queryForObject("select detach_bookings_partitions(?)", Integer.class, cutoff));
+        if (detached != null && detached > 0) {
+            log.info("{} bookings partitions ended before {} detached.", detached, cutoff);
+        }
+
+        long count = 0;
+        for (String partition : jdbcTemplate.queryForList("select detached_bookings_partitions(?)",
+                String.class, cutoff)) {
+            Long moved = transactionTemplate.execute(status ->
+                    jdbcTemplate.queryForObject("select archive_bookings_partition(?)", Long.class, partition));
+            count += moved != null ? moved : 0;
+        }
+        return count;
+    }
+
+    private long archiveRows(LocalDate cutoff) {
+        Long moved = transactionTemplate.execute(status -> {
+            archiveRepository.flush();
+            long copied = jdbcTemplate.update(COPY_ENDED_BEFORE, cutoff.atStartOfDay());
+            jdbcTemplate.update(DELETE_ENDED_BEFORE, cutoff.atStartOfDay());
+            return copied;
+        });
+        return moved != null ? moved : 0;
+    }
+}
@@ -0,0 +1,124 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.outbox.BookingEventType;
+import ru.practicum.shareit.booking.outbox.BookingOutbox;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Moves WAITING bookings whose start has passed to EXPIRED. Every chunk of
+ * {@code shareit.expiry.batch-size} bookings is locked, updated with one statement and committed
+ * in its own short transaction, with {@code shareit.expiry.pause} between chunks. Their intervals are released
+ * from the index afterwards under the items' locks, which aren't taken while the booking rows are locked.
+ * The pause sleeps on a scheduler thread, so {@code spring.task.scheduling.pool.size} leaves one per job.
+ */
+@Slf4j
+@Component
+public class BookingExpiryJob {
+    private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex intervalIndex;
+    private final BookingOutbox outbox;
+    private final ItemLocks itemLocks;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration pause;
+    private final Counter processed;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public BookingExpiryJob(BookingRepository bookingRepository,
+                            BookingIntervalIndex intervalIndex,
+                            BookingOutbox outbox,
+                            ItemLocks itemLocks,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${shareit.expiry.batch-size:500}") int batchSize,
+                            @Value("${shareit.expiry.pause:PT0.1S}") Duration pause) {
+        this.bookingRepository = bookingRepository;
+        this.intervalIndex = intervalIndex;
+        this.outbox = outbox;
+        this.itemLocks = itemLocks;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.pause = pause;
+        this.processed = Counter.builder("bookings.expiry.processed")
+                .description("WAITING bookings moved to EXPIRED")
+                .register(meterRegistry);
+        Gauge.builder("bookings.expiry.lag", lagSeconds, AtomicLong::get)
+                .description("Seconds since the start of the oldest WAITING booking left unexpired")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.expiry.interval:PT1M}",
+            initialDelayString = "${shareit.expiry.interval:PT1M}")
+    public void run() {
+        LocalDateTime now = LocalDateTime.now();
+        long total = 0;
+        int expired;
+
+        do {
+            expired = expireChunk(now);
+            processed.increment(expired);
+            total += expired;
+        } while (expired == batchSize && pause());
+
+        lagSeconds.set(bookingRepository.findOldestExpiredWaitingStart(now)
+                .map(start -> Duration.between(start, now).getSeconds())
+                .orElse(0L));
+        if (total > 0) {
+            log.info("{} WAITING bookings expired.", total);
+        }
+    }
+
+    /**
+     * Expires one chunk of the oldest stale WAITING bookings and returns its size.
+     */
+    public int expireChunk(LocalDateTime now) {
+        List<Booking> expired = transactionTemplate.execute(status -> {
+            List<Booking> bookings = bookingRepository.findExpiredWaiting(now, PageRequest.of(0, batchSize));
+            if (bookings.isEmpty()) {
+                return bookings;
+            }
+
+            List<Long> ids = bookings.stream().map(Booking::getId).collect(Collectors.toList());
+            outbox.recordAll(bookings, BookingEventType.EXPIRED);
+            bookingRepository.updateWaitingStatusByIdIn(ids, Status.EXPIRED);
+            return bookings;
+        });
+        if (expired == null || expired.isEmpty()) {
+            return 0;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            itemLocks.lockAll(expired.stream().map(booking -> booking.getItem().getId()).collect(Collectors.toSet()));
+            expired.forEach(intervalIndex::release);
+        });
+        return expired.size();
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
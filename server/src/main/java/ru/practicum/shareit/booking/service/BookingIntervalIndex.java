@@ -0,0 +1,340 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory per-item index of booked intervals (WAITING and APPROVED bookings that haven't ended yet).
+ * Items are loaded lazily from the repository on first access and kept up to date on booking creation
+ * and rejection, so checks of free intervals cost a binary search. Loads and releases happen under
+ * the item's {@link ItemLocks} lock, so a release can't be lost while a snapshot is being loaded.
+ *
+ * <p>Other instances change bookings without telling this one, so an item is reloaded once it has been
+ * cached for {@code shareit.booking.interval-index.ttl}, and a conflict found in the index is confirmed
+ * by the database before it is reported. At most {@code shareit.booking.interval-index.max-items} items
+ * are kept; the least recently used ones are evicted and ended intervals pruned by a periodic sweep.
+ */
+@Slf4j
+@Component
+public class BookingIntervalIndex {
+    private static final Set<Status> BLOCKING_STATUSES = EnumSet.of(Status.WAITING, Status.APPROVED);
+    private static final long NONE = -1;
+
+    private final BookingRepository bookingRepository;
+    private final ConcurrentMap<Long, ItemIntervals> intervals = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxItems;
+
+    public BookingIntervalIndex(BookingRepository bookingRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${shareit.booking.interval-index.ttl:PT10M}") Duration ttl,
+                                @Value("${shareit.booking.interval-index.max-items:10000}") int maxItems) {
+        this.bookingRepository = bookingRepository;
+        this.ttlNanos = ttl.toNanos();
+        this.maxItems = maxItems;
+        Gauge.builder("bookings.interval_index.items", intervals, Map::size)
+                .description("Items whose booked intervals are cached")
+                .register(meterRegistry);
+    }
+
+    public boolean overlaps(long itemId, LocalDateTime start, LocalDateTime end) {
+        long conflict = forItem(itemId).findOverlap(toSeconds(start), toSeconds(end));
+        if (conflict == NONE || isConfirmed(itemId, conflict)) {
+            return conflict != NONE;
+        }
+        return forItem(itemId).findOverlap(toSeconds(start), toSeconds(end)) != NONE;
+    }
+
+    /**
+     * Atomically checks the booking against the item's intervals and adds it when free.
+     * Inside a transaction the reservation is dropped again if the transaction rolls back.
+     */
+    public boolean tryReserve(Booking booking) {
+        long itemId = booking.getItem().getId();
+        long start = toSeconds(booking.getStart());
+        long end = toSeconds(booking.getEnd());
+        long conflict = forItem(itemId).tryAdd(booking.getId(), start, end);
+        if (conflict != NONE && !isConfirmed(itemId, conflict)) {
+            conflict = forItem(itemId).tryAdd(booking.getId(), start, end);
+        }
+        boolean reserved = conflict == NONE;
+
+        if (reserved && TransactionSynchronizationManager.isSynchronizationActive()) {
+            long bookingId = booking.getId();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        release(itemId, bookingId, start);
+                    }
+                }
+            });
+        }
+        return reserved;
+    }
+
+    /**
+     * Frees the booking's interval; inside a transaction this happens only once it commits.
+     */
+    public void release(Booking booking) {
+        long itemId = booking.getItem().getId();
+        long bookingId = booking.getId();
+        long start = toSeconds(booking.getStart());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    release(itemId, bookingId, start);
+                }
+            });
+        } else {
+            release(itemId, bookingId, start);
+        }
+    }
+
+    private void release(long itemId, long bookingId, long start) {
+        ItemIntervals itemIntervals = intervals.get(itemId);
+        if (itemIntervals != null) {
+            itemIntervals.remove(bookingId, start);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.interval-index.sweep-interval:PT1M}",
+            initialDelayString = "${shareit.booking.interval-index.sweep-interval:PT1M}")
+    public void run() {
+        evict(LocalDateTime.now());
+    }
+
+    /**
+     * Drops items cached longer than the TTL and the intervals of the rest that ended by {@code now}, then
+     * evicts the least recently used items above the limit. Returns the number of evicted items.
+     */
+    public int evict(LocalDateTime now) {
+        long nanos = System.nanoTime();
+        long seconds = toSeconds(now);
+        int evicted = 0;
+
+        for (Map.Entry<Long, ItemIntervals> entry : intervals.entrySet()) {
+            if (nanos - entry.getValue().loadedAt >= ttlNanos) {
+                evicted += intervals.remove(entry.getKey(), entry.getValue()) ? 1 : 0;
+            } else {
+                entry.getValue().removeEndedBy(seconds);
+            }
+        }
+
+        int excess = intervals.size() - maxItems;
+        if (excess > 0) {
+            List<Map.Entry<Long, ItemIntervals>> leastRecentlyUsed = intervals.entrySet().stream()
+                    .sorted(Comparator.comparingLong(entry -> entry.getValue().usedAt))
+                    .limit(excess)
+                    .collect(Collectors.toList());
+            for (Map.Entry<Long, ItemIntervals> entry : leastRecentlyUsed) {
+                evicted += intervals.remove(entry.getKey(), entry.getValue()) ? 1 : 0;
+            }
+        }
+
+        if (evicted > 0) {
+            log.debug("{} items evicted from the booked intervals index.", evicted);
+        }
+        return evicted;
+    }
+
+    /**
+     * Asks the database whether the conflicting booking found in the index still blocks the item, which is
+     * a primary key lookup. If not, the item's intervals are stale and dropped, so the next access reloads them.
+     */
+    private boolean isConfirmed(long itemId, long conflictingBookingId) {
+        if (bookingRepository.existsByIdAndStatusIn(conflictingBookingId, BLOCKING_STATUSES)) {
+            return true;
+        }
+        log.debug("Stale booked intervals of item {} dropped.", itemId);
+        intervals.remove(itemId);
+        return false;
+    }
+
+    private ItemIntervals forItem(long itemId) {
+        ItemIntervals itemIntervals = intervals.get(itemId);
+        if (itemIntervals != null) {
+            itemIntervals.usedAt = System.nanoTime();
+            return itemIntervals;
+        }
+
+        List<Booking> bookings = bookingRepository.findAllByItemIdAndStatusInAndEndAfter(itemId, BLOCKING_STATUSES,
+                LocalDateTime.now());
+        ItemIntervals loaded = new ItemIntervals(bookings.size());
+        bookings.forEach(booking ->
+                loaded.add(booking.getId(), toSeconds(booking.getStart()), toSeconds(booking.getEnd())));
+        log.debug("Loaded {} booked intervals for item {}.", bookings.size(), itemId);
+
+        ItemIntervals existing = intervals.putIfAbsent(itemId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private static long toSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Half-open [start, end) intervals sorted by start. {@code maxEnds[i]} holds the largest end
+     * among the first i + 1 intervals, which keeps the overlap check logarithmic even if
+     * previously stored bookings overlap each other.
+     */
+    static final class ItemIntervals {
+        private final long loadedAt = System.nanoTime();
+        private volatile long usedAt = loadedAt;
+        private long[] ids;
+        private long[] starts;
+        private long[] ends;
+        private long[] maxEnds;
+        private int size;
+
+        ItemIntervals(int capacity) {
+            int initial = Math.max(capacity, 8);
+            ids = new long[initial];
+            starts = new long[initial];
+            ends = new long[initial];
+            maxEnds = new long[initial];
+        }
+
+        /**
+         * Returns the ID of a stored interval overlapping [start, end), or {@code NONE}. Among the intervals
+         * starting before the end, the first one whose running maximum end passes the start is such an interval.
+         */
+        synchronized long findOverlap(long start, long end) {
+            int last = upperBound(end - 1) - 1;
+            if (last < 0 || maxEnds[last] <= start) {
+                return NONE;
+            }
+            int low = 0;
+            int high = last;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (maxEnds[middle] > start) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return ids[low];
+        }
+
+        /**
+         * Adds the interval unless it overlaps a stored one, whose ID is returned then; otherwise returns
+         * {@code NONE}, also when the interval is already stored.
+         */
+        synchronized long tryAdd(long id, long start, long end) {
+            if (indexOf(id, start) >= 0) {
+                return NONE;
+            }
+            long conflict = findOverlap(start, end);
+            if (conflict == NONE) {
+                add(id, start, end);
+            }
+            return conflict;
+        }
+
+        synchronized void add(long id, long start, long end) {
+            if (size == starts.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                maxEnds = Arrays.copyOf(maxEnds, capacity);
+            }
+
+            int position = upperBound(start);
+            int tail = size - position;
+            System.arraycopy(ids, position, ids, position + 1, tail);
+            System.arraycopy(starts, position, starts, position + 1, tail);
+            System.arraycopy(ends, position, ends, position + 1, tail);
+            ids[position] = id;
+            starts[position] = start;
+            ends[position] = end;
+            size++;
+            recomputeMaxEnds(position);
+        }
+
+        synchronized void remove(long id, long start) {
+            int position = indexOf(id, start);
+            if (position < 0) {
+                return;
+            }
+            int tail = size - position - 1;
+            System.arraycopy(ids, position + 1, ids, position, tail);
+            System.arraycopy(starts, position + 1, starts, position, tail);
+            System.arraycopy(ends, position + 1, ends, position, tail);
+            size--;
+            recomputeMaxEnds(position);
+        }
+
+        synchronized void removeEndedBy(long time) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (ends[i] > time) {
+                    ids[kept] = ids[i];
+                    starts[kept] = starts[i];
+                    ends[kept] = ends[i];
+                    kept++;
+                }
+            }
+            if (kept < size) {
+                size = kept;
+                recomputeMaxEnds(0);
+            }
+        }
+
+        private int indexOf(long id, long start) {
+            for (int i = upperBound(start) - 1; i >= 0 && starts[i] == start; i--) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int upperBound(long value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (starts[middle] <= value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private void recomputeMaxEnds(int from) {
+            long max = from > 0 ? maxEnds[from - 1] : Long.MIN_VALUE;
+            for (int i = from; i < size; i++) {
+                max = Math.max(max, ends[i]);
+                maxEnds[i] = max;
+            }
+        }
+    }
+}
@@ -1,18 +1,43 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingCreationDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPage;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
     BookingDto create(Long userId, BookingCreationDto dto);
 
+    List<BookingBatchResultDto> createBatch(Long userId, List<BookingCreationDto> dtos);
+
     BookingDto approve(Long userId, Long bookingId, Boolean isApproved);
 
+    List<Long> approveAll(Long ownerId, BookingApprovalDto dto, Boolean isApproved);
+
     BookingDto getBookingById(Long userId, Long bookingId);
 
     List<BookingDto> getByBookerId(Long bookerId, String state, Integer from, Integer size);
 
     List<BookingDto> getByOwnerId(Long ownerId, String state,  Integer from, Integer size);
+
+    List<BookingDto> getArchivedByBookerId(Long bookerId, Integer from, Integer size);
+
+    List<BookingDto> getArchivedByOwnerId(Long ownerId, Integer from, Integer size);
+
+    void exportByBookerId(Long bookerId, Consumer<BookingDto> action);
+
+    void exportByOwnerId(Long ownerId, Consumer<BookingDto> action);
+
+    BookingCountsDto countByBookerId(Long bookerId);
+
+    BookingCountsDto countByOwnerId(Long ownerId);
+
+    BookingPage getPageByBookerId(Long bookerId, String state, String cursor, Integer size);
+
+    BookingPage getPageByOwnerId(Long ownerId, String state, String cursor, Integer size);
 }
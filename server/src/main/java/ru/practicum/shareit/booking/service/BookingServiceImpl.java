@@ -2,18 +2,29 @@ package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.RetryOnConflict;
+import ru.practicum.shareit.booking.BookingArchiveRepository;
+import ru.practicum.shareit.booking.BookingCursor;
 import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingCreationDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPage;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.State;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.outbox.BookingEventType;
+import ru.practicum.shareit.booking.outbox.BookingOutbox;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.model.Item;
@@ -21,21 +32,44 @@ import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.service.UserService;
 
+import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    private static final String EXCLUSION_VIOLATION = "23P01";
+    private static final String APPROVED_OVERLAP = "Item is already booked for these dates.";
+
     private final BookingRepository bookingRepository;
+    private final BookingArchiveRepository archiveRepository;
     private final UserService userService;
     private final ItemService itemService;
+    private final BookingIntervalIndex intervalIndex;
+    private final ItemAvailabilityCalendar calendar;
+    private final BookingOutbox outbox;
+    private final ItemLocks itemLocks;
 
     @Transactional
     @Override
     public BookingDto create(Long userId, BookingCreationDto dto) {
         User user = userService.getUserById(userId);
+        itemLocks.lock(dto.getItemId());
         Item item = itemService.getItemById(dto.getItemId());
 
         if (isUserOwnerOfItem(user, item)) {
@@ -44,45 +78,163 @@ public class BookingServiceImpl implements BookingService {
         if (!item.isAvailable()) {
             throw new ValidationException("Item is unavailable.");
         }
+        if (intervalIndex.overlaps(item.getId(), dto.getStart(), dto.getEnd())) {
+            throw new ValidationException("Item is already booked for these dates.");
+        }
 
         Booking booking = bookingRepository.save(BookingMapper.fromDto(dto, user, item));
+        if (!intervalIndex.tryReserve(booking)) {
+            throw new ValidationException("Item is already booked for these dates.");
+        }
+        outbox.record(booking, BookingEventType.CREATED);
         log.info("Booking {} for {} created.", booking.getId(), item.getName());
 
         return BookingMapper.toDto(booking);
     }
 
+    /**
+     * Every entry is checked against the interval index, whose loads and confirmations query the database,
+     * and against the earlier accepted entries before anything is persisted. The accepted bookings are then
+     * saved together, so their inserts go out in one JDBC batch at flush and rejected entries never do.
+     */
+    @Transactional
+    @Override
+    public List<BookingBatchResultDto> createBatch(Long userId, List<BookingCreationDto> dtos) {
+        User user = userService.getUserById(userId);
+        Set<Long> itemIds = dtos.stream()
+                .filter(dto -> dto != null && dto.getItemId() != null)
+                .map(BookingCreationDto::getItemId)
+                .collect(Collectors.toSet());
+        itemLocks.lockAll(itemIds);
+        Map<Long, Item> items = itemService.getItemsByIds(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        BookingBatchResultDto[] results = new BookingBatchResultDto[dtos.size()];
+        Map<Integer, Booking> accepted = new LinkedHashMap<>();
+
+        for (int i = 0; i < dtos.size(); i++) {
+            BookingCreationDto dto = dtos.get(i);
+            String error = validateBatchEntry(user, dto == null ? null : items.get(dto.getItemId()), dto,
+                    accepted.values());
+            if (error == null) {
+                accepted.put(i, BookingMapper.fromDto(dto, user, items.get(dto.getItemId())));
+            } else {
+                results[i] = BookingBatchResultDto.builder().index(i).error(error).build();
+            }
+        }
+
+        bookingRepository.saveAll(accepted.values());
+        for (Map.Entry<Integer, Booking> entry : accepted.entrySet()) {
+            if (!intervalIndex.tryReserve(entry.getValue())) {
+                throw new ConflictException("Item is already booked for these dates.");
+            }
+            results[entry.getKey()] = BookingBatchResultDto.builder()
+                    .index(entry.getKey())
+                    .booking(BookingMapper.toDto(entry.getValue()))
+                    .build();
+        }
+        outbox.recordAll(accepted.values(), BookingEventType.CREATED);
+
+        log.info("{} of {} bookings in batch created for user {}.", accepted.size(), dtos.size(), userId);
+        return Arrays.asList(results);
+    }
+
+    @RetryOnConflict
     @Transactional
     @Override
     public BookingDto approve(Long ownerId, Long bookingId, Boolean isApproved) {
         User owner = userService.getUserById(ownerId);
         Booking booking = getBookingOrThrow(bookingId);
         Item item = booking.getItem();
+        itemLocks.lock(item.getId());
 
         bookingStatusValidation(booking);
         if (!isUserOwnerOfItem(owner, item)) {
             throw new NotFoundException("Trying to approve not owned item for booking.");
         }
 
+        if (isApproved && bookingRepository.existsApprovedOverlap(item.getId(), booking.getStart(),
+                booking.getEnd(), booking.getId())) {
+            throw new ConflictException(APPROVED_OVERLAP);
+        }
+
         booking.setStatus(isApproved ? Status.APPROVED : Status.REJECTED);
+        if (isApproved) {
+            calendar.occupy(booking);
+        } else {
+            intervalIndex.release(booking);
+            calendar.release(booking);
+        }
+        outbox.record(booking, isApproved ? BookingEventType.APPROVED : BookingEventType.REJECTED);
+        try {
+            booking = bookingRepository.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException e) {
+            throw translateOverlap(e);
+        }
         log.info("Booking {} is {}.", booking.getId(), booking.getStatus());
 
-        return BookingMapper.toDto(bookingRepository.save(booking));
+        return BookingMapper.toDto(booking);
     }
 
+    /**
+     * Approves or rejects the owner's WAITING bookings with one update under the items' locks. When approving,
+     * bookings overlapping an APPROVED booking of their item, or an earlier starting one of the same call,
+     * are skipped and stay WAITING; only the IDs of the changed bookings are returned.
+     */
+    @Transactional
     @Override
-    public BookingDto getBookingById(Long userId, Long bookingId) {
-        User user = userService.getUserById(userId);
-        Booking booking = getBookingOrThrow(bookingId);
-        Item item = booking.getItem();
+    public List<Long> approveAll(Long ownerId, BookingApprovalDto dto, Boolean isApproved) {
+        userService.getUserById(ownerId);
+        List<Booking> bookings;
+
+        if (dto.getItemId() != null) {
+            itemLocks.lock(dto.getItemId());
+            bookings = bookingRepository.findWaitingByItemIdAndOwnerId(dto.getItemId(), ownerId);
+        } else if (dto.getBookingIds() != null && !dto.getBookingIds().isEmpty()) {
+            itemLocks.lockAll(bookingRepository.findItemIdsByIdIn(dto.getBookingIds()));
+            bookings = bookingRepository.findWaitingByIdInAndOwnerId(dto.getBookingIds(), ownerId);
+        } else {
+            throw new ValidationException("Either booking IDs or item ID must be passed.");
+        }
+        if (isApproved) {
+            bookings = withoutApprovedOverlaps(bookings);
+        }
+        if (bookings.isEmpty()) {
+            return List.of();
+        }
 
-        if (!booking.getBooker().equals(user) && !isUserOwnerOfItem(user, item)) {
-            throw new NotFoundException("User is not owner of the item or its booker.");
+        List<Long> ids = bookings.stream().map(Booking::getId).collect(Collectors.toList());
+        Status status = isApproved ? Status.APPROVED : Status.REJECTED;
+        outbox.recordAll(bookings, isApproved ? BookingEventType.APPROVED : BookingEventType.REJECTED);
+        try {
+            bookingRepository.updateWaitingStatusByIdIn(ids, status);
+        } catch (DataIntegrityViolationException e) {
+            throw translateOverlap(e);
+        }
+        if (isApproved) {
+            bookings.forEach(calendar::occupy);
+        } else {
+            bookings.forEach(intervalIndex::release);
+            bookings.forEach(calendar::release);
         }
 
+        log.info("{} bookings of owner {} are {}.", ids.size(), ownerId, status);
+        return ids;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public BookingDto getBookingById(Long userId, Long bookingId) {
+        User user = userService.getUserById(userId);
+        BookingDto booking = bookingRepository.findDtoByIdAndUserId(bookingId, user.getId())
+                .orElseThrow(() -> bookingRepository.existsById(bookingId)
+                        ? new NotFoundException("User is not owner of the item or its booker.")
+                        : new NotFoundException("Booking ID is not found"));
+
         log.info("Booking {} found.", booking.getId());
-        return BookingMapper.toDto(booking);
+        return booking;
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<BookingDto> getByBookerId(Long bookerId, String passedState, Integer from, Integer size) {
         User booker = userService.getUserById(bookerId);
@@ -115,6 +267,7 @@ public class BookingServiceImpl implements BookingService {
         return BookingMapper.toDto(bookings);
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<BookingDto> getByOwnerId(Long ownerId, String passedState, Integer from, Integer size) {
         User owner = userService.getUserById(ownerId);
@@ -147,6 +300,211 @@ public class BookingServiceImpl implements BookingService {
         return BookingMapper.toDto(bookings);
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public List<BookingDto> getArchivedByBookerId(Long bookerId, Integer from, Integer size) {
+        User booker = userService.getUserById(bookerId);
+        List<BookingDto> bookings = archiveRepository.findDtoByBookerId(booker.getId(), getPage(from, size));
+        log.info("Found {} archived bookings of user {}.", bookings.size(), booker.getName());
+        return bookings;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<BookingDto> getArchivedByOwnerId(Long ownerId, Integer from, Integer size) {
+        User owner = userService.getUserById(ownerId);
+        List<BookingDto> bookings = archiveRepository.findDtoByOwnerId(owner.getId(), getPage(from, size));
+        log.info("Found {} archived bookings of {}'s items.", bookings.size(), owner.getName());
+        return bookings;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void exportByBookerId(Long bookerId, Consumer<BookingDto> action) {
+        User booker = userService.getUserById(bookerId);
+        try (Stream<BookingDto> bookings = bookingRepository.streamDtoByBookerId(booker.getId())) {
+            bookings.forEach(action);
+        }
+        log.info("{}'s bookings exported.", booker.getName());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void exportByOwnerId(Long ownerId, Consumer<BookingDto> action) {
+        User owner = userService.getUserById(ownerId);
+        try (Stream<BookingDto> bookings = bookingRepository.streamDtoByOwnerId(owner.getId())) {
+            bookings.forEach(action);
+        }
+        log.info("{}'s owned item bookings exported.", owner.getName());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public BookingCountsDto countByBookerId(Long bookerId) {
+        User booker = userService.getUserById(bookerId);
+        BookingCountsDto counts = bookingRepository.countStatesByBookerId(booker.getId());
+        log.info("{}'s booking counts: {}.", booker.getName(), counts);
+        return counts;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public BookingCountsDto countByOwnerId(Long ownerId) {
+        User owner = userService.getUserById(ownerId);
+        BookingCountsDto counts = bookingRepository.countStatesByOwnerId(owner.getId());
+        log.info("{}'s owned item booking counts: {}.", owner.getName(), counts);
+        return counts;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public BookingPage getPageByBookerId(Long bookerId, String passedState, String cursor, Integer size) {
+        User booker = userService.getUserById(bookerId);
+        State state = State.valueOf(passedState);
+        BookingCursor after = BookingCursor.decode(cursor);
+        LocalDateTime start = after.getStart();
+        long id = after.getId();
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<Booking> bookings = new ArrayList<>();
+
+        switch (state) {
+            case ALL:
+                bookings = bookingRepository.findPageByBookerId(bookerId, start, id, pageable);
+                break;
+            case CURRENT:
+                bookings = bookingRepository.findPageByBookerIdAndStateCurrent(bookerId, start, id, pageable);
+                break;
+            case FUTURE:
+                bookings = bookingRepository.findPageByBookerIdAndStateFuture(bookerId, start, id, pageable);
+                break;
+            case PAST:
+                bookings = bookingRepository.findPageByBookerIdAndStatePast(bookerId, start, id, pageable);
+                break;
+            case WAITING:
+                bookings = bookingRepository.findPageByBookerIdAndStatus(bookerId, start, id, Status.WAITING, pageable);
+                break;
+            case REJECTED:
+                bookings = bookingRepository.findPageByBookerIdAndStatus(bookerId, start, id, Status.REJECTED, pageable);
+                break;
+        }
+
+        log.info("{}'s {} bookings found after cursor.", booker.getName(), bookings.size());
+        return toPage(bookings, size);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public BookingPage getPageByOwnerId(Long ownerId, String passedState, String cursor, Integer size) {
+        User owner = userService.getUserById(ownerId);
+        State state = State.valueOf(passedState);
+        BookingCursor after = BookingCursor.decode(cursor);
+        LocalDateTime start = after.getStart();
+        long id = after.getId();
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<Booking> bookings = new ArrayList<>();
+
+        switch (state) {
+            case ALL:
+                bookings = bookingRepository.findPageByOwnerId(ownerId, start, id, pageable);
+                break;
+            case CURRENT:
+                bookings = bookingRepository.findPageByOwnerIdAndStateCurrent(ownerId, start, id, pageable);
+                break;
+            case FUTURE:
+                bookings = bookingRepository.findPageByOwnerIdAndStateFuture(ownerId, start, id, pageable);
+                break;
+            case PAST:
+                bookings = bookingRepository.findPageByOwnerIdAndStatePast(ownerId, start, id, pageable);
+                break;
+            case WAITING:
+                bookings = bookingRepository.findPageByOwnerIdAndStatus(ownerId, start, id, Status.WAITING, pageable);
+                break;
+            case REJECTED:
+                bookings = bookingRepository.findPageByOwnerIdAndStatus(ownerId, start, id, Status.REJECTED, pageable);
+                break;
+        }
+
+        log.info("{}'s {} bookings found after cursor.", owner.getName(), bookings.size());
+        return toPage(bookings, size);
+    }
+
+    private BookingPage toPage(List<Booking> bookings, int size) {
+        if (bookings.size() <= size) {
+            return new BookingPage(BookingMapper.toDto(bookings), null);
+        }
+        List<Booking> page = bookings.subList(0, size);
+        return new BookingPage(BookingMapper.toDto(page), BookingCursor.encode(page.get(size - 1)));
+    }
+
+    /**
+     * Finds the bookings overlapping APPROVED ones with one query, then walks the rest in start order and keeps
+     * those not overlapping a booking already kept for the same item.
+     */
+    private List<Booking> withoutApprovedOverlaps(List<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return bookings;
+        }
+
+        Set<Long> skipped = new HashSet<>(bookingRepository.findIdsOverlappingApproved(
+                bookings.stream().map(Booking::getId).collect(Collectors.toList())));
+        Map<Long, LocalDateTime> keptUntil = new HashMap<>();
+        bookings.stream()
+                .filter(booking -> !skipped.contains(booking.getId()))
+                .sorted(Comparator.comparing(Booking::getStart).thenComparing(Booking::getId))
+                .forEach(booking -> {
+                    LocalDateTime until = keptUntil.get(booking.getItem().getId());
+                    if (until != null && booking.getStart().isBefore(until)) {
+                        skipped.add(booking.getId());
+                    } else {
+                        keptUntil.put(booking.getItem().getId(), booking.getEnd());
+                    }
+                });
+
+        if (!skipped.isEmpty()) {
+            log.info("Bookings {} overlap approved ones and stay WAITING.", skipped);
+        }
+        return bookings.stream()
+                .filter(booking -> !skipped.contains(booking.getId()))
+                .collect(Collectors.toList());
+    }
+
+    private String validateBatchEntry(User user, Item item, BookingCreationDto dto, Collection<Booking> accepted) {
+        if (dto == null || dto.getItemId() == null || dto.getStart() == null || dto.getEnd() == null) {
+            return "Booking needs an item ID, start and end.";
+        }
+        if (!dto.getStart().isBefore(dto.getEnd())) {
+            return "Start time is not before end time.";
+        }
+        if (item == null) {
+            return "Item with this ID is not found";
+        }
+        if (isUserOwnerOfItem(user, item)) {
+            return "Trying to book user's own item.";
+        }
+        if (!item.isAvailable()) {
+            return "Item is unavailable.";
+        }
+        if (intervalIndex.overlaps(item.getId(), dto.getStart(), dto.getEnd())
+                || accepted.stream().anyMatch(booking -> booking.getItem().getId() == item.getId()
+                && booking.getStart().isBefore(dto.getEnd()) && dto.getStart().isBefore(booking.getEnd()))) {
+            return "Item is already booked for these dates.";
+        }
+        return null;
+    }
+
+    /**
+     * Postgres rejects overlapping APPROVED bookings of an item with an exclusion constraint;
+     * other databases rely on the check in approve.
+     */
+    private static RuntimeException translateOverlap(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && EXCLUSION_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+                return new ConflictException(APPROVED_OVERLAP);
+            }
+        }
+        return e;
+    }
+
     private void bookingStatusValidation(Booking booking) {
         if (!booking.getStatus().equals(Status.WAITING)) {
             throw new ValidationException("Booking status must be WAITING to approve.");
@@ -163,6 +521,6 @@ public class BookingServiceImpl implements BookingService {
     }
 
     private PageRequest getPage(Integer from, Integer size) {
-        return PageRequest.of(from / size, size, Sort.by("start").descending());
+        return PageRequest.of(from / size, size, Sort.by("start", "id").descending());
     }
 }
@@ -0,0 +1,347 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory per-item hourly occupancy of APPROVED bookings. Every item keeps one bit per hour,
+ * so availability over any range is answered by bit scans instead of reading bookings.
+ * Items are loaded lazily on first access and updated after approvals and rejections commit.
+ * A load runs inside the map's computeIfAbsent and updates inside computeIfPresent, so an update
+ * committed while its item is being loaded waits for the load and is applied to the loaded calendar.
+ *
+ * <p>Only bookings ending after the horizon, {@code shareit.booking.calendar.history} before now, are kept;
+ * ranges starting before it are answered from the database without caching. Approvals on other instances
+ * don't reach this one, so an item is reloaded once it has been cached for {@code shareit.booking.calendar.ttl}.
+ * At most {@code shareit.booking.calendar.max-items} items are kept; the least recently used ones are evicted
+ * and the horizon of the rest moved forward by a periodic sweep, like in {@link BookingIntervalIndex}.
+ */
+@Slf4j
+@Component
+public class ItemAvailabilityCalendar {
+    private static final long SECONDS_IN_HOUR = 3600;
+    private static final Set<Status> OCCUPYING_STATUSES = Set.of(Status.APPROVED);
+
+    private final BookingRepository bookingRepository;
+    private final ConcurrentMap<Long, ItemCalendar> calendars = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxItems;
+    private final Duration history;
+
+    public ItemAvailabilityCalendar(BookingRepository bookingRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${shareit.booking.calendar.ttl:PT10M}") Duration ttl,
+                                    @Value("${shareit.booking.calendar.max-items:10000}") int maxItems,
+                                    @Value("${shareit.booking.calendar.history:P7D}") Duration history) {
+        this.bookingRepository = bookingRepository;
+        this.ttlNanos = ttl.toNanos();
+        this.maxItems = maxItems;
+        this.history = history;
+        Gauge.builder("bookings.calendar.items", calendars, Map::size)
+                .description("Items whose availability calendar is cached")
+                .register(meterRegistry);
+    }
+
+    public ItemAvailabilityDto getAvailability(long itemId, LocalDateTime from, LocalDateTime to) {
+        long fromHour = Math.floorDiv(toSeconds(from), SECONDS_IN_HOUR);
+        long toHour = -Math.floorDiv(-toSeconds(to), SECONDS_IN_HOUR);
+        List<TimeSlotDto> free = new ArrayList<>();
+        List<TimeSlotDto> busy = new ArrayList<>();
+        ItemCalendar calendar = forRange(itemId, fromHour * SECONDS_IN_HOUR);
+
+        synchronized (calendar) {
+            long hour = fromHour;
+            while (hour < toHour) {
+                long busyFrom = calendar.nextBusy(hour, toHour);
+                if (busyFrom > hour) {
+                    free.add(slot(hour, busyFrom));
+                }
+                if (busyFrom == toHour) {
+                    break;
+                }
+                hour = calendar.nextFree(busyFrom, toHour);
+                busy.add(slot(busyFrom, hour));
+            }
+        }
+        return new ItemAvailabilityDto(itemId, toTime(fromHour), toTime(toHour), free, busy);
+    }
+
+    /**
+     * Marks the booking's hours as busy; inside a transaction this happens only once it commits.
+     */
+    public void occupy(Booking booking) {
+        afterCommit(booking, ItemCalendar::occupy);
+    }
+
+    /**
+     * Frees the booking's hours if it was on the calendar; other bookings sharing an hour keep it busy.
+     */
+    public void release(Booking booking) {
+        afterCommit(booking, ItemCalendar::release);
+    }
+
+    private void afterCommit(Booking booking, CalendarUpdate update) {
+        long itemId = booking.getItem().getId();
+        long bookingId = booking.getId();
+        long start = toSeconds(booking.getStart());
+        long end = toSeconds(booking.getEnd());
+        Runnable apply = () -> calendars.computeIfPresent(itemId, (id, calendar) -> {
+            update.apply(calendar, bookingId, start, end);
+            return calendar;
+        });
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.calendar.sweep-interval:PT1M}",
+            initialDelayString = "${shareit.booking.calendar.sweep-interval:PT1M}")
+    public void run() {
+        evict(LocalDateTime.now());
+    }
+
+    /**
+     * Drops items cached longer than the TTL and moves the horizon of the rest to {@code now} minus the history,
+     * then evicts the least recently used items above the limit. Returns the number of evicted items.
+     */
+    public int evict(LocalDateTime now) {
+        long nanos = System.nanoTime();
+        long horizon = horizon(now);
+        int evicted = 0;
+
+        for (Map.Entry<Long, ItemCalendar> entry : calendars.entrySet()) {
+            if (nanos - entry.getValue().loadedAt >= ttlNanos) {
+                evicted += calendars.remove(entry.getKey(), entry.getValue()) ? 1 : 0;
+            } else {
+                entry.getValue().removeEndedBy(horizon);
+            }
+        }
+
+        int excess = calendars.size() - maxItems;
+        if (excess > 0) {
+            List<Map.Entry<Long, ItemCalendar>> leastRecentlyUsed = calendars.entrySet().stream()
+                    .sorted(Comparator.comparingLong(entry -> entry.getValue().usedAt))
+                    .limit(excess)
+                    .collect(Collectors.toList());
+            for (Map.Entry<Long, ItemCalendar> entry : leastRecentlyUsed) {
+                evicted += calendars.remove(entry.getKey(), entry.getValue()) ? 1 : 0;
+            }
+        }
+
+        if (evicted > 0) {
+            log.debug("{} items evicted from the availability calendar.", evicted);
+        }
+        return evicted;
+    }
+
+    private ItemCalendar forRange(long itemId, long from) {
+        ItemCalendar calendar = calendars.get(itemId);
+        if (calendar == null) {
+            calendar = calendars.computeIfAbsent(itemId, id -> load(id, horizon(LocalDateTime.now())));
+        }
+        if (from < calendar.horizon) {
+            return load(itemId, from);
+        }
+        calendar.usedAt = System.nanoTime();
+        return calendar;
+    }
+
+    private ItemCalendar load(long itemId, long horizon) {
+        List<Booking> bookings = bookingRepository.findAllByItemIdAndStatusInAndEndAfter(itemId, OCCUPYING_STATUSES,
+                toTime(horizon / SECONDS_IN_HOUR));
+        ItemCalendar loaded = new ItemCalendar(horizon);
+        bookings.forEach(booking ->
+                loaded.occupy(booking.getId(), toSeconds(booking.getStart()), toSeconds(booking.getEnd())));
+        log.debug("Loaded {} approved bookings into calendar of item {}.", bookings.size(), itemId);
+        return loaded;
+    }
+
+    /**
+     * Start of the hour {@code history} before the time, in epoch seconds.
+     */
+    private long horizon(LocalDateTime now) {
+        return Math.floorDiv(toSeconds(now.minus(history)), SECONDS_IN_HOUR) * SECONDS_IN_HOUR;
+    }
+
+    private static TimeSlotDto slot(long fromHour, long toHour) {
+        return new TimeSlotDto(toTime(fromHour), toTime(toHour));
+    }
+
+    private static long toSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toTime(long hour) {
+        return LocalDateTime.ofEpochSecond(hour * SECONDS_IN_HOUR, 0, ZoneOffset.UTC);
+    }
+
+    @FunctionalInterface
+    private interface CalendarUpdate {
+        void apply(ItemCalendar calendar, long bookingId, long start, long end);
+    }
+
+    /**
+     * Busy hours split into chunks of {@code CHUNK_SIZE} bits keyed by epoch hour / chunk size,
+     * so an item only pays for the periods it actually has bookings in. Hours that a booking
+     * covers only partially can be shared with a neighbouring booking and are reference counted.
+     * Hours before the horizon are not answered from the calendar, so bookings ending by it may be dropped.
+     */
+    static final class ItemCalendar {
+        private static final int CHUNK_BITS = 13;
+        private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+        private final long loadedAt = System.nanoTime();
+        private volatile long usedAt = loadedAt;
+        private volatile long horizon;
+        private final Map<Long, BitSet> chunks = new HashMap<>();
+        private final Map<Long, Integer> sharedHours = new HashMap<>();
+        private final Map<Long, long[]> bookings = new HashMap<>();
+
+        ItemCalendar(long horizon) {
+            this.horizon = horizon;
+        }
+
+        synchronized void occupy(long bookingId, long start, long end) {
+            if (bookings.putIfAbsent(bookingId, new long[]{start, end}) != null) {
+                return;
+            }
+            long first = Math.floorDiv(start, SECONDS_IN_HOUR);
+            long last = -Math.floorDiv(-end, SECONDS_IN_HOUR) - 1;
+            for (long hour = first; hour <= last; hour = nextChunk(hour)) {
+                long chunkEnd = Math.min(nextChunk(hour) - 1, last);
+                chunks.computeIfAbsent(hour >> CHUNK_BITS, key -> new BitSet(CHUNK_SIZE))
+                        .set(offset(hour), offset(chunkEnd) + 1);
+            }
+            forPartialHours(first, last, start, end, hour -> sharedHours.merge(hour, 1, Integer::sum));
+        }
+
+        synchronized void release(long bookingId, long start, long end) {
+            if (bookings.remove(bookingId) == null) {
+                return;
+            }
+            long first = Math.floorDiv(start, SECONDS_IN_HOUR);
+            long last = -Math.floorDiv(-end, SECONDS_IN_HOUR) - 1;
+            forPartialHours(first, last, start, end, hour -> sharedHours.merge(hour, -1, Integer::sum));
+            for (long hour = first; hour <= last; hour++) {
+                if (!sharedHours.containsKey(hour)) {
+                    clear(hour);
+                } else if (sharedHours.get(hour) == 0) {
+                    sharedHours.remove(hour);
+                    clear(hour);
+                }
+            }
+        }
+
+        synchronized void removeEndedBy(long time) {
+            if (time <= horizon) {
+                return;
+            }
+            List<Long> ended = bookings.entrySet().stream()
+                    .filter(booking -> booking.getValue()[1] <= time)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            for (long bookingId : ended) {
+                long[] interval = bookings.get(bookingId);
+                release(bookingId, interval[0], interval[1]);
+            }
+            horizon = time;
+        }
+
+        long nextBusy(long from, long to) {
+            for (long hour = from; hour < to; hour = nextChunk(hour)) {
+                BitSet bits = chunks.get(hour >> CHUNK_BITS);
+                if (bits != null) {
+                    int found = bits.nextSetBit(offset(hour));
+                    if (found >= 0) {
+                        return Math.min(chunkStart(hour) + found, to);
+                    }
+                }
+            }
+            return to;
+        }
+
+        long nextFree(long from, long to) {
+            for (long hour = from; hour < to; hour = nextChunk(hour)) {
+                BitSet bits = chunks.get(hour >> CHUNK_BITS);
+                if (bits == null) {
+                    return hour;
+                }
+                int found = bits.nextClearBit(offset(hour));
+                if (found < CHUNK_SIZE) {
+                    return Math.min(chunkStart(hour) + found, to);
+                }
+            }
+            return to;
+        }
+
+        private void clear(long hour) {
+            BitSet bits = chunks.get(hour >> CHUNK_BITS);
+            if (bits != null) {
+                bits.clear(offset(hour));
+                if (bits.isEmpty()) {
+                    chunks.remove(hour >> CHUNK_BITS);
+                }
+            }
+        }
+
+        private static void forPartialHours(long first, long last, long start, long end,
+                                            LongConsumer action) {
+            if (!coversHour(first, start, end)) {
+                action.accept(first);
+            }
+            if (last != first && !coversHour(last, start, end)) {
+                action.accept(last);
+            }
+        }
+
+        private static boolean coversHour(long hour, long start, long end) {
+            return start <= hour * SECONDS_IN_HOUR && end >= (hour + 1) * SECONDS_IN_HOUR;
+        }
+
+        private static long chunkStart(long hour) {
+            return (hour >> CHUNK_BITS) << CHUNK_BITS;
+        }
+
+        private static long nextChunk(long hour) {
+            return chunkStart(hour) + CHUNK_SIZE;
+        }
+
+        private static int offset(long hour) {
+            return (int) (hour & (CHUNK_SIZE - 1));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped per-item locks that serialize booking changes of the same item inside one server instance.
+ * Items share a fixed array of {@code shareit.booking.lock-stripes} locks, so nothing is allocated per item
+ * and unrelated items only wait for each other when they happen to share a stripe. A lock is held until
+ * the surrounding transaction completes, so the next booking of the item sees the committed result.
+ */
+@Slf4j
+@Component
+public class ItemLocks {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final Duration timeout;
+    private final Counter contended;
+    private final Counter timeouts;
+    private final Timer waits;
+
+    public ItemLocks(MeterRegistry meterRegistry,
+                     @Value("${shareit.booking.lock-stripes:256}") int stripeCount,
+                     @Value("${shareit.booking.lock-timeout:PT5S}") Duration timeout) {
+        int size = Integer.highestOneBit(Math.max(stripeCount - 1, 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.timeout = timeout;
+        this.contended = Counter.builder("bookings.item_lock.contended")
+                .description("Item lock acquisitions that had to wait for another request")
+                .register(meterRegistry);
+        this.timeouts = Counter.builder("bookings.item_lock.timeouts")
+                .description("Item lock acquisitions that gave up after the lock timeout")
+                .register(meterRegistry);
+        this.waits = Timer.builder("bookings.item_lock.wait")
+                .description("Time spent waiting for contended item locks")
+                .register(meterRegistry);
+        Gauge.builder("bookings.item_lock.queued", stripes,
+                        locks -> Arrays.stream(locks).mapToInt(ReentrantLock::getQueueLength).sum())
+                .description("Threads currently waiting for item locks")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Locks the item's stripe until the current transaction completes.
+     */
+    public void lock(long itemId) {
+        acquireUntilCompletion(new int[]{stripeOf(itemId)});
+    }
+
+    /**
+     * Locks the stripes of all the items in stripe order, so concurrent callers can't deadlock each other.
+     */
+    public void lockAll(Collection<Long> itemIds) {
+        acquireUntilCompletion(itemIds.stream().mapToInt(this::stripeOf).distinct().sorted().toArray());
+    }
+
+    /**
+     * Index of the lock guarding the item; Fibonacci hashing spreads sequential IDs over all stripes.
+     */
+    public int stripeOf(long itemId) {
+        long hash = itemId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void acquireUntilCompletion(int[] indexes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Item locks can only be taken inside a transaction.");
+        }
+
+        int acquired = 0;
+        try {
+            for (int index : indexes) {
+                acquire(stripes[index]);
+                acquired++;
+            }
+        } finally {
+            if (acquired < indexes.length) {
+                release(indexes, acquired);
+            }
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                release(indexes, indexes.length);
+            }
+        });
+    }
+
+    private void acquire(ReentrantLock lock) {
+        if (lock.tryLock()) {
+            return;
+        }
+
+        contended.increment();
+        Timer.Sample sample = Timer.start();
+        boolean locked;
+        try {
+            locked = lock.tryLock(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            locked = false;
+        }
+        sample.stop(waits);
+
+        if (!locked) {
+            timeouts.increment();
+            log.warn("Item lock not acquired within {}.", timeout);
+            throw new CannotAcquireLockException("Item is being booked by another request, please retry.");
+        }
+    }
+
+    private void release(int[] indexes, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            stripes[indexes[i]].unlock();
+        }
+    }
+}
@@ -1,13 +1,23 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentPage;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemCatalogDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemPage;
 import ru.practicum.shareit.item.service.ItemService;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
+import static ru.practicum.shareit.Utils.HAS_MORE_HEADER;
+import static ru.practicum.shareit.Utils.NEXT_CURSOR_HEADER;
 import static ru.practicum.shareit.Utils.USER_ID_HEADER;
 
 @RestController
@@ -42,12 +52,54 @@ public class ItemController {
         return service.getUsersItems(userId, from, size);
     }
 
+    @GetMapping("/catalog")
+    public ResponseEntity<List<ItemCatalogDto>> getCatalog(@RequestHeader(value = USER_ID_HEADER) long userId,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "10") int size) {
+        ItemPage page = service.getCatalogPage(userId, cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
     @GetMapping("/search")
-    public List<ItemDto> searchForItems(@RequestHeader(value = USER_ID_HEADER) long userId,
-                                        @RequestParam String text,
-                                        @RequestParam(defaultValue = "0") int from,
-                                        @RequestParam(defaultValue = "10") int size) {
-        return service.searchAvailableItems(userId, text.toLowerCase(), from, size);
+    public ResponseEntity<List<ItemDto>> searchForItems(@RequestHeader(value = USER_ID_HEADER) long userId,
+                                                        @RequestParam String text,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                        LocalDateTime start,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                        LocalDateTime end,
+                                                        @RequestParam(defaultValue = "0") int from,
+                                                        @RequestParam(defaultValue = "10") int size) {
+        Slice<ItemDto> items = service.searchAvailableItems(userId, text.toLowerCase(), start, end, from, size);
+        return ResponseEntity.ok()
+                .header(HAS_MORE_HEADER, String.valueOf(items.hasNext()))
+                .body(items.getContent());
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(@RequestHeader(value = USER_ID_HEADER) long userId,
+                                               @PathVariable long itemId,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime from,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime to) {
+        return service.getAvailability(userId, itemId, from, to);
+    }
+
+    @GetMapping("/{itemId}/comments")
+    public ResponseEntity<List<CommentDto>> getComments(@RequestHeader(value = USER_ID_HEADER) long userId,
+                                                        @PathVariable long itemId,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "10") int size) {
+        CommentPage page = service.getComments(userId, itemId, cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getComments());
     }
 
     @PostMapping("/{itemId}/comment")
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.item;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.dto.ItemCatalogDto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor over an owner's items, holding the ID of the last item of the previous page.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ItemCursor {
+    public static final ItemCursor FIRST = new ItemCursor(0);
+
+    private final long id;
+
+    public static String encode(ItemCatalogDto item) {
+        String raw = String.valueOf(item.getId());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ItemCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return new ItemCursor(Long.parseLong(raw));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid cursor: " + cursor);
+        }
+    }
+}
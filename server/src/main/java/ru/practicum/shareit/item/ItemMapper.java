@@ -17,6 +17,7 @@ public class ItemMapper {
                 .available(item.isAvailable())
                 .requestId(item.getRequest() != null ? item.getRequest().getId() : null)
                 .owner(UserMapper.toShortDto(item.getOwner()))
+                .commentCount(item.getCommentCount())
                 .build();
     }
 
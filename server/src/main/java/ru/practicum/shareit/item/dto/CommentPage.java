@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.Generated;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Generated
+public class CommentPage {
+    private List<CommentDto> comments;
+    private String nextCursor;
+}
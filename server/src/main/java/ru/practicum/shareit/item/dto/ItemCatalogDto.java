@@ -0,0 +1,28 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.Generated;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+
+/**
+ * An item in its owner's catalog, with the number of its bookings in any status and of its comments.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Generated
+public class ItemCatalogDto {
+    private long id;
+    private String name;
+    private String description;
+    private Boolean available;
+    private Long requestId;
+    private BookingShortDto lastBooking;
+    private BookingShortDto nextBooking;
+    private long bookingCount;
+    private long commentCount;
+}
@@ -25,5 +25,6 @@ public class ItemDto {
     private UserShortDto owner;
     private BookingShortDto lastBooking;
     private BookingShortDto nextBooking;
+    private long commentCount;
     private List<CommentDto> comments = new ArrayList<>();
 }
@@ -29,6 +29,10 @@ public class Item {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "request_id")
     private ItemRequest request;
+    @Column(name = "comment_count", insertable = false, updatable = false)
+    private long commentCount;
+    @Version
+    private long version;
 
     @Override
     public boolean equals(Object o) {
@@ -1,12 +1,22 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findAllByItemId(long itemId);
 
     List<Comment> findAllByItemIdIn(List<Long> ids);
+
+    @Query("select c from Comment as c " +
+            "join fetch c.author " +
+            "where c.item.id = ?1 " +
+            "and (c.created < ?2 or (c.created = ?2 and c.id < ?3)) " +
+            "order by c.created desc, c.id desc")
+    List<Comment> findPageByItemId(long itemId, LocalDateTime created, long id, Pageable pageable);
 }
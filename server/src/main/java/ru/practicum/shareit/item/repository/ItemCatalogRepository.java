@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item.repository;
+
+import ru.practicum.shareit.item.dto.ItemCatalogDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ItemCatalogRepository {
+    /**
+     * Up to limit of the owner's items with IDs above afterId in ID order, each with its last and next
+     * APPROVED bookings relative to the time and its booking and comment counts.
+     */
+    List<ItemCatalogDto> findCatalogPage(long ownerId, long afterId, LocalDateTime time, int limit);
+}
@@ -0,0 +1,79 @@
+package ru.practicum.shareit.item.repository;
+
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.item.dto.ItemCatalogDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the page of items by the (owner, id) index and looks up the booking aggregates of just those items
+ * with correlated subqueries in the same statement, so the cost of a page doesn't depend on how many items
+ * or bookings the owner has. Booking counts and last bookings include archived bookings. Comment counts are kept
+ * on the items themselves.
+ */
+public class ItemCatalogRepositoryImpl implements ItemCatalogRepository {
+    private static final String CATALOG_PAGE = "select p.id, p.name, p.description, p.available, p.request_id, " +
+            "(select count(*) from bookings_history as b where b.item_id = p.id) as booking_count, " +
+            "p.comment_count, " +
+            "l.id as last_id, l.start_time as last_start, l.end_time as last_end, l.booker_id as last_booker_id, " +
+            "n.id as next_id, n.start_time as next_start, n.end_time as next_end, n.booker_id as next_booker_id " +
+            "from (select i.id, i.name, i.description, i.available, i.request_id, i.comment_count " +
+            "from items as i " +
+            "where i.owner = :ownerId and i.id > :afterId " +
+            "order by i.id " +
+            "limit :limit) as p " +
+            "left join bookings_history as l on l.item_id = p.id and l.id = (select b.id from bookings_history as b " +
+            "where b.item_id = p.id and b.status = 'APPROVED' and b.start_time < :time " +
+            "order by b.end_time desc, b.id desc " +
+            "limit 1) " +
+            "left join bookings as n on n.item_id = p.id and n.id = (select b.id from bookings as b " +
+            "where b.item_id = p.id and b.status = 'APPROVED' and b.start_time > :time " +
+            "order by b.start_time, b.id " +
+            "limit 1) " +
+            "order by p.id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ItemCatalogDto> findCatalogPage(long ownerId, long afterId, LocalDateTime time, int limit) {
+        List<Object[]> rows = entityManager.createNativeQuery(CATALOG_PAGE)
+                .setParameter("ownerId", ownerId)
+                .setParameter("afterId", afterId)
+                .setParameter("time", time)
+                .setParameter("limit", limit)
+                .getResultList();
+
+        List<ItemCatalogDto> items = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            items.add(ItemCatalogDto.builder()
+                    .id(((Number) row[0]).longValue())
+                    .name((String) row[1])
+                    .description((String) row[2])
+                    .available((Boolean) row[3])
+                    .requestId(row[4] == null ? null : ((Number) row[4]).longValue())
+                    .bookingCount(((Number) row[5]).longValue())
+                    .commentCount(((Number) row[6]).longValue())
+                    .lastBooking(toBooking(row, 7))
+                    .nextBooking(toBooking(row, 11))
+                    .build());
+        }
+        return items;
+    }
+
+    private static BookingShortDto toBooking(Object[] row, int offset) {
+        if (row[offset] == null) {
+            return null;
+        }
+        return new BookingShortDto(((Number) row[offset]).longValue(),
+                ((Timestamp) row[offset + 1]).toLocalDateTime(),
+                ((Timestamp) row[offset + 2]).toLocalDateTime(),
+                ((Number) row[offset + 3]).longValue());
+    }
+}
@@ -2,20 +2,44 @@ package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.item.dto.ItemShortDto;
 import ru.practicum.shareit.item.model.Item;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemSearchRepository, ItemCatalogRepository {
     List<Item> findAllByOwnerId(Long userId, Pageable pageable);
 
-    List<Item> findAllByRequestIdIn(List<Long> ids);
+    @Query("select new ru.practicum.shareit.item.dto.ItemShortDto(i.id, i.name, i.description, i.available, r.id) " +
+            "from Item as i " +
+            "join i.request as r " +
+            "where r.id in ?1")
+    List<ItemShortDto> findShortByRequestIdIn(Collection<Long> ids);
 
-    List<Item> findAllByRequestId(long requestId);
+    @Query("select new ru.practicum.shareit.item.dto.ItemShortDto(i.id, i.name, i.description, i.available, r.id) " +
+            "from Item as i " +
+            "join i.request as r " +
+            "where r.id = ?1")
+    List<ItemShortDto> findShortByRequestId(long requestId);
+
+    @Query("select new ru.practicum.shareit.item.dto.ItemShortDto(i.id, i.name, i.description, i.available, r.id) " +
+            "from Item as i " +
+            "left join i.request as r " +
+            "where i.id > ?1 " +
+            "order by i.id")
+    List<ItemShortDto> findShortByIdGreaterThan(long id, Pageable pageable);
 
     @Query("select i from Item as i " +
-            "where lower(i.name) like lower(concat('%', ?1, '%')) " +
-            "or lower(i.description) like lower(concat('%', ?1, '%'))")
-    List<Item> search(String text, Pageable pageable);
-}
\ No newline at end of file
+            "join fetch i.owner " +
+            "where i.id = ?1 " +
+            "and exists (select u.id from User as u where u.id = ?2)")
+    Optional<Item> findDetailById(long itemId, long userId);
+
+    @Modifying
+    @Query("update Item as i set i.commentCount = i.commentCount + 1 where i.id = ?1")
+    void incrementCommentCount(long itemId);
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.item.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+
+public interface ItemSearchRepository {
+    /**
+     * Available items matching the text, most relevant first where the database can rank them.
+     * One extra row is read to tell whether a next page exists.
+     */
+    Slice<Item> search(String text, Pageable pageable);
+
+    /**
+     * Same as {@link #search}, without items that have an APPROVED booking overlapping [start, end).
+     */
+    Slice<Item> searchFreeBetween(String text, LocalDateTime start, LocalDateTime end, Pageable pageable);
+}
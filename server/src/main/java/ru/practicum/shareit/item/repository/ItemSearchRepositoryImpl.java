@@ -0,0 +1,79 @@
+package ru.practicum.shareit.item.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import ru.practicum.shareit.item.model.Item;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * On Postgres items are matched against the GIN indexed search_vector column with the shareit text search
+ * config (Russian stemming for Cyrillic, English for Latin words) and ordered by ts_rank.
+ * Other databases fall back to a substring match in ID order.
+ */
+public class ItemSearchRepositoryImpl implements ItemSearchRepository {
+    private static final String FULL_TEXT = "select i.* from items as i, " +
+            "(select websearch_to_tsquery('shareit', :text) as q) as s " +
+            "where i.available = true " +
+            "and i.search_vector @@ s.q ";
+    private static final String FULL_TEXT_ORDER = "order by ts_rank(i.search_vector, s.q) desc, i.id";
+    private static final String FREE_BETWEEN = "and not exists (select 1 from bookings as b " +
+            "where b.item_id = i.id " +
+            "and b.status = 'APPROVED' " +
+            "and b.start_time < :end " +
+            "and b.end_time > :start) ";
+
+    private static final String LIKE = "select i from Item as i " +
+            "where i.available = true " +
+            "and (lower(i.name) like lower(concat('%', :text, '%')) " +
+            "or lower(i.description) like lower(concat('%', :text, '%'))) ";
+    private static final String LIKE_FREE_BETWEEN = "and not exists (select b.id from Booking as b " +
+            "where b.item = i " +
+            "and b.status = ru.practicum.shareit.booking.model.Status.APPROVED " +
+            "and b.start < :end " +
+            "and b.end > :start) ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+    private final boolean fullText;
+
+    public ItemSearchRepositoryImpl(@Value("${spring.datasource.url}") String datasourceUrl) {
+        this.fullText = DatabaseDriver.fromJdbcUrl(datasourceUrl) == DatabaseDriver.POSTGRESQL;
+    }
+
+    @Override
+    public Slice<Item> search(String text, Pageable pageable) {
+        Query query = fullText
+                ? entityManager.createNativeQuery(FULL_TEXT + FULL_TEXT_ORDER, Item.class)
+                : entityManager.createQuery(QueryUtils.applySorting(LIKE, pageable.getSort(), "i"), Item.class);
+        return page(query.setParameter("text", text), pageable);
+    }
+
+    @Override
+    public Slice<Item> searchFreeBetween(String text, LocalDateTime start, LocalDateTime end, Pageable pageable) {
+        Query query = fullText
+                ? entityManager.createNativeQuery(FULL_TEXT + FREE_BETWEEN + FULL_TEXT_ORDER, Item.class)
+                : entityManager.createQuery(QueryUtils.applySorting(LIKE + LIKE_FREE_BETWEEN, pageable.getSort(), "i"),
+                Item.class);
+        return page(query.setParameter("text", text)
+                .setParameter("start", start)
+                .setParameter("end", end), pageable);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Slice<Item> page(Query query, Pageable pageable) {
+        List<Item> items = query.setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = items.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? items.subList(0, pageable.getPageSize()) : items, pageable, hasNext);
+    }
+}
@@ -0,0 +1,192 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemShortDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo tolerant in-memory item search over a {@link TrigramIndex}, enabled by {@code shareit.search.index.enabled}.
+ * The index is rebuilt from the database on startup, reading {@code rebuild-chunk} items at a time while
+ * trigrams of the previous chunk are computed by {@code rebuild-parallelism} threads, and is then kept up
+ * to date as items are created and updated. Changes committed during a rebuild are replayed onto the new index.
+ * Until a rebuild has completed, and again after one fails, the index isn't ready and callers search the database.
+ */
+@Slf4j
+@Component
+public class ItemSearchIndex {
+    private final ItemRepository itemRepo;
+    private final boolean enabled;
+    private final double minSimilarity;
+    private final int chunkSize;
+    private final int parallelism;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private TrigramIndex index;
+    private List<ItemShortDto> pending;
+    private volatile boolean ready;
+
+    public ItemSearchIndex(ItemRepository itemRepo,
+                           @Value("${shareit.search.index.enabled:false}") boolean enabled,
+                           @Value("${shareit.search.index.min-similarity:0.4}") double minSimilarity,
+                           @Value("${shareit.search.index.rebuild-chunk:10000}") int chunkSize,
+                           @Value("${shareit.search.index.rebuild-parallelism:4}") int parallelism) {
+        this.itemRepo = itemRepo;
+        this.enabled = enabled;
+        this.minSimilarity = minSimilarity;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.index = new TrigramIndex(minSimilarity);
+    }
+
+    /**
+     * Whether the index is enabled and holds all items, i.e. the last rebuild completed.
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Item search index rebuild failed, items are searched in the database.", e);
+        }
+    }
+
+    /**
+     * Replaces the index with one built from all items in the database.
+     */
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        write(() -> pending = new ArrayList<>());
+        TrigramIndex rebuilt = new TrigramIndex(minSimilarity);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            CompletableFuture<Void> indexed = CompletableFuture.completedFuture(null);
+            long lastId = 0;
+            List<ItemShortDto> chunk;
+            do {
+                chunk = itemRepo.findShortByIdGreaterThan(lastId, PageRequest.of(0, chunkSize));
+                List<ItemShortDto> items = chunk;
+                indexed = indexed.thenCombine(trigramsOf(items, executor), (ignored, grams) -> {
+                    for (int i = 0; i < items.size(); i++) {
+                        rebuilt.put(items.get(i).getId(), grams[i], items.get(i).getAvailable());
+                    }
+                    return null;
+                });
+                if (!chunk.isEmpty()) {
+                    lastId = chunk.get(chunk.size() - 1).getId();
+                }
+            } while (chunk.size() == chunkSize);
+            indexed.join();
+
+            write(() -> {
+                pending.forEach(item -> put(rebuilt, item));
+                index = rebuilt;
+            });
+            ready = true;
+            log.info("Item search index of {} items rebuilt in {} ms.", rebuilt.size(),
+                    System.currentTimeMillis() - startedAt);
+        } catch (RuntimeException e) {
+            ready = false;
+            throw e;
+        } finally {
+            executor.shutdown();
+            write(() -> pending = null);
+        }
+    }
+
+    /**
+     * Indexes the item's current name, description and availability once the surrounding transaction commits.
+     */
+    public void put(Item item) {
+        if (!enabled) {
+            return;
+        }
+
+        ItemShortDto dto = ItemMapper.toShortDto(item);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(dto);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(dto);
+            }
+        });
+    }
+
+    /**
+     * IDs of available items matching the text, best matches first.
+     */
+    public List<Long> search(String text, int from, int size) {
+        lock.readLock().lock();
+        try {
+            return index.search(text, from, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(ItemShortDto item) {
+        write(() -> {
+            put(index, item);
+            if (pending != null) {
+                pending.add(item);
+            }
+        });
+    }
+
+    private CompletableFuture<int[][]> trigramsOf(List<ItemShortDto> items, ExecutorService executor) {
+        int[][] grams = new int[items.size()][];
+        int sliceSize = Math.max(1, (items.size() + parallelism - 1) / parallelism);
+        List<CompletableFuture<Void>> slices = new ArrayList<>();
+        for (int start = 0; start < items.size(); start += sliceSize) {
+            int from = start;
+            int to = Math.min(items.size(), start + sliceSize);
+            slices.add(CompletableFuture.runAsync(() -> {
+                for (int i = from; i < to; i++) {
+                    grams[i] = TrigramIndex.trigrams(textOf(items.get(i)));
+                }
+            }, executor));
+        }
+        return CompletableFuture.allOf(slices.toArray(new CompletableFuture[0])).thenApply(ignored -> grams);
+    }
+
+    private void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void put(TrigramIndex index, ItemShortDto item) {
+        index.put(item.getId(), textOf(item), item.getAvailable());
+    }
+
+    private static String textOf(ItemShortDto item) {
+        return item.getName() + " " + item.getDescription();
+    }
+}
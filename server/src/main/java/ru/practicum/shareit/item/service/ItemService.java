@@ -1,9 +1,15 @@
 package ru.practicum.shareit.item.service;
 
+import org.springframework.data.domain.Slice;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentPage;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemPage;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ItemService {
@@ -15,9 +21,18 @@ public interface ItemService {
 
     Item getItemById(long itemId);
 
+    List<Item> getItemsByIds(Collection<Long> itemIds);
+
     List<ItemDto> getUsersItems(long userId, int from, int size);
 
-    List<ItemDto> searchAvailableItems(long userId, String text, int from, int size);
+    ItemPage getCatalogPage(long userId, String cursor, int size);
+
+    CommentPage getComments(long userId, long itemId, String cursor, int size);
+
+    Slice<ItemDto> searchAvailableItems(long userId, String text, LocalDateTime start, LocalDateTime end,
+                                        int from, int size);
+
+    ItemAvailabilityDto getAvailability(long userId, long itemId, LocalDateTime from, LocalDateTime to);
 
     CommentDto addComment(long userId, long itemId, CommentDto dto);
 }
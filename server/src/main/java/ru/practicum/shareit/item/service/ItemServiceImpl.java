@@ -4,20 +4,28 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.shareit.Generated;
-import ru.practicum.shareit.booking.BookingMapper;
-import ru.practicum.shareit.booking.model.Booking;
-import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.RetryOnConflict;
+import ru.practicum.shareit.booking.service.ItemAvailabilityCalendar;
+import ru.practicum.shareit.booking.BookingArchiveRepository;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.ItemBookingsDto;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.CommentCursor;
 import ru.practicum.shareit.item.CommentMapper;
+import ru.practicum.shareit.item.ItemCursor;
 import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentPage;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemCatalogDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemPage;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
@@ -28,19 +36,30 @@ import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
+    private static final Pageable LATEST_COMMENTS = PageRequest.of(0, 10);
+    private static final int MAX_AVAILABILITY_DAYS = 366;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final ItemRepository itemRepo;
     private final BookingRepository bookingRepo;
+    private final BookingArchiveRepository archiveRepo;
     private final CommentRepository commentRepo;
     private final UserService userService;
     private final ItemRequestService requestService;
+    private final ItemAvailabilityCalendar calendar;
+    private final ItemSearchIndex searchIndex;
 
     @Override
     @Transactional
@@ -53,12 +72,14 @@ public class ItemServiceImpl implements ItemService {
             item.setRequest(requestService.getRequestById(itemDto.getRequestId()));
         }
         item = itemRepo.save(item);
+        searchIndex.put(item);
 
         log.info("Item {} with ID {} created.", item.getName(), item.getId());
         return makeDtoWithAllData(user, item);
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
     public ItemDto updateItem(long userId, long itemId, ItemDto dto) {
         User user = userService.getUserById(userId);
@@ -70,55 +91,112 @@ public class ItemServiceImpl implements ItemService {
 
         ItemMapper.fromDto(dto, item);
         item = itemRepo.save(item);
+        searchIndex.put(item);
         ItemDto resultDto = makeDtoWithAllData(user, item);
 
         log.info("Item {} with ID {} updated.", item.getName(), itemId);
         return resultDto;
     }
 
+    /**
+     * Reads the item with its owner in one statement and its latest comments with their authors in another,
+     * plus the last and next bookings in a third one only when the user owns the item.
+     */
     @Override
+    @Transactional(readOnly = true)
     public ItemDto getById(long userId, long itemId) {
-        User user = userService.getUserById(userId);
-        Item item = getItemById(itemId);
-        ItemDto dto = makeDtoWithAllData(user, item);
+        Item item = itemRepo.findDetailById(itemId, userId).orElse(null);
+        if (item == null) {
+            userService.getUserById(userId);
+            throw new NotFoundException("Item with this ID is not found");
+        }
+
+        List<CommentDto> comments = getLatestComments(itemId);
+        ItemBookingsDto bookings = null;
+        if (item.getOwner().getId() == userId) {
+            bookings = bookingRepo.findLastAndNextApproved(List.of(itemId), LocalDateTime.now()).stream()
+                    .findFirst().orElse(null);
+        }
+
+        ItemDto dto = makeDtoWithAllData(item, bookings, comments);
         log.info("Item with ID {} found.", itemId);
         return dto;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemDto> getUsersItems(long userId, int from, int size) {
         User user = userService.getUserById(userId);
         Pageable pageable = getPage(from, size);
-        List<Booking> bookings = new ArrayList<>(bookingRepo.findAllByOwnerId(userId, pageable));
         List<Item> items = itemRepo.findAllByOwnerId(userId, pageable);
-        List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
-        List<Comment> comments = new ArrayList<>(commentRepo.findAllByItemIdIn(itemIds));
 
-        return items.stream()
-                .map(item -> makeDtoWithAllData(user, item, bookings, comments))
-                .collect(Collectors.toList());
+        return makeDtosWithAllData(user, items);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CommentPage getComments(long userId, long itemId, String cursor, int size) {
+        userService.getUserById(userId);
+        validatePageSize(size);
+        getItemById(itemId);
+        CommentCursor after = CommentCursor.decode(cursor);
+        List<Comment> comments = commentRepo.findPageByItemId(itemId, after.getCreated(), after.getId(),
+                PageRequest.of(0, size + 1));
+
+        log.info("{} comments of item {} found after cursor.", comments.size(), itemId);
+        if (comments.size() <= size) {
+            return new CommentPage(CommentMapper.toDto(comments), null);
+        }
+        List<Comment> page = comments.subList(0, size);
+        return new CommentPage(CommentMapper.toDto(page), CommentCursor.encode(page.get(size - 1)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ItemPage getCatalogPage(long userId, String cursor, int size) {
+        User user = userService.getUserById(userId);
+        validatePageSize(size);
+        ItemCursor after = ItemCursor.decode(cursor);
+        List<ItemCatalogDto> items = itemRepo.findCatalogPage(userId, after.getId(), LocalDateTime.now(), size + 1);
+        String nextCursor = null;
+        if (items.size() > size) {
+            items = items.subList(0, size);
+            nextCursor = ItemCursor.encode(items.get(size - 1));
+        }
+
+        log.info("{}'s {} items found after cursor.", user.getName(), items.size());
+        return new ItemPage(items, nextCursor);
     }
 
     @Override
-    public List<ItemDto> searchAvailableItems(long userId, String text, int from, int size) {
+    @Transactional(readOnly = true)
+    public Slice<ItemDto> searchAvailableItems(long userId, String text, LocalDateTime start, LocalDateTime end,
+                                               int from, int size) {
         User user = userService.getUserById(userId);
         Pageable pageable = getPage(from, size);
 
+        if ((start == null) != (end == null)) {
+            throw new ValidationException("Both start and end of the search window must be passed.");
+        }
+        if (start != null && !start.isBefore(end)) {
+            throw new ValidationException("Start time is not before end time.");
+        }
         if (text.isBlank()) {
-            return Collections.emptyList();
+            return new SliceImpl<>(Collections.emptyList(), pageable, false);
         }
 
-        List<Item> items = itemRepo.search(text, pageable).stream()
-                .filter(Item::isAvailable)
-                .collect(Collectors.toList());
-        List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
-        List<Comment> comments = new ArrayList<>(commentRepo.findAllByItemIdIn(itemIds));
-        List<Booking> bookings = new ArrayList<>(bookingRepo.findAllByOwnerId(userId, pageable));
+        Slice<Item> items;
+        if (start != null) {
+            items = itemRepo.searchFreeBetween(text, start, end, pageable);
+        } else if (searchIndex.isReady()) {
+            items = searchIndexed(text, pageable);
+        } else {
+            items = itemRepo.search(text, pageable);
+        }
+        List<ItemDto> dtos = makeDtosWithAllData(user, items.getContent());
 
-        log.info("Found {} corresponding items.", items.size());
-        return items.stream()
-                .map(item -> makeDtoWithAllData(user, item, bookings, comments))
-                .collect(Collectors.toList());
+        log.info("Found {} corresponding items.", items.getNumberOfElements());
+        return new SliceImpl<>(dtos, pageable, items.hasNext());
     }
 
     @Override
@@ -128,6 +206,31 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
+    public List<Item> getItemsByIds(Collection<Long> itemIds) {
+        return itemRepo.findAllById(itemIds);
+    }
+
+    @Override
+    public ItemAvailabilityDto getAvailability(long userId, long itemId, LocalDateTime from, LocalDateTime to) {
+        userService.getUserById(userId);
+        if (!itemRepo.existsById(itemId)) {
+            throw new NotFoundException("Item with this ID is not found");
+        }
+        if (!from.isBefore(to)) {
+            throw new ValidationException("Start time is not before end time.");
+        }
+        if (from.plusDays(MAX_AVAILABILITY_DAYS).isBefore(to)) {
+            throw new ValidationException("Availability range must not exceed " + MAX_AVAILABILITY_DAYS + " days.");
+        }
+
+        ItemAvailabilityDto availability = calendar.getAvailability(itemId, from, to);
+        log.info("Item {} has {} free and {} busy slots.", itemId,
+                availability.getFree().size(), availability.getBusy().size());
+        return availability;
+    }
+
+    @Override
+    @Transactional
     public CommentDto addComment(long userId, long itemId, CommentDto dto) {
         User author = userService.getUserById(userId);
         Item item = getItemById(itemId);
@@ -137,65 +240,70 @@ public class ItemServiceImpl implements ItemService {
         comment.setAuthor(author);
         comment.setItem(item);
         comment = commentRepo.save(CommentMapper.fromDto(dto, comment));
+        itemRepo.incrementCommentCount(item.getId());
 
         log.info("Comment {} added to item {}.", comment.getId(), item.getId());
         return CommentMapper.toDto(comment);
     }
 
     private ItemDto makeDtoWithAllData(User user, Item item) {
-        ItemDto dto = ItemMapper.toDto(item);
-
+        ItemBookingsDto bookings = null;
         if (isUserOwnerOfItem(user, item)) {
-            Booking next = bookingRepo
-                    .findFirstByItemIdAndStartAfterAndStatusOrderByStartAsc(
-                            item.getId(), LocalDateTime.now(), Status.APPROVED).orElse(null);
-            dto.setNextBooking(next != null ? BookingMapper.toShortDto(next) : null);
-
-            Booking last = bookingRepo
-                    .findFirstByItemIdAndStartBeforeAndStatusOrderByEndDesc(
-                            item.getId(), LocalDateTime.now(), Status.APPROVED).orElse(null);
-            dto.setLastBooking(last != null ? BookingMapper.toShortDto(last) : null);
+            bookings = bookingRepo.findLastAndNextApproved(List.of(item.getId()), LocalDateTime.now()).stream()
+                    .findFirst().orElse(null);
         }
+        return makeDtoWithAllData(item, bookings, getLatestComments(item.getId()));
+    }
 
-        dto.setComments(CommentMapper.toDto(commentRepo.findAllByItemId(item.getId())));
+    /**
+     * Builds DTOs of the items with one query for the last and next bookings of the user's own items,
+     * joined by item ID. Comments are left out and only counted.
+     */
+    private List<ItemDto> makeDtosWithAllData(User user, List<Item> items) {
+        List<Long> ownItemIds = items.stream()
+                .filter(item -> isUserOwnerOfItem(user, item))
+                .map(Item::getId)
+                .collect(Collectors.toList());
+        Map<Long, ItemBookingsDto> bookings = bookingRepo.findLastAndNextApproved(ownItemIds, LocalDateTime.now())
+                .stream()
+                .collect(Collectors.toMap(ItemBookingsDto::getItemId, Function.identity()));
 
-        return dto;
+        return items.stream()
+                .map(item -> makeDtoWithAllData(item, bookings.get(item.getId()), new ArrayList<>()))
+                .collect(Collectors.toList());
     }
 
-    @Generated
-    private ItemDto makeDtoWithAllData(User user, Item item, List<Booking> bookings, List<Comment> comments) {
+    private ItemDto makeDtoWithAllData(Item item, ItemBookingsDto bookings, List<CommentDto> comments) {
         ItemDto dto = ItemMapper.toDto(item);
-        if (isUserOwnerOfItem(user, item)) {
-            Booking next = null;
-            Booking last = null;
-
-            for (Booking booking : bookings) {
-                if (booking.getItem().equals(item) && booking.getStatus().equals(Status.APPROVED)) {
-                    if (booking.getStart().isAfter(LocalDateTime.now())) {
-                        if (next == null || booking.getStart().isBefore(next.getStart())) {
-                            next = booking;
-                        }
-                    } else if (last == null || booking.getEnd().isAfter(last.getEnd())) {
-                        last = booking;
-                    }
-                }
-            }
-
-            dto.setNextBooking(next != null ? BookingMapper.toShortDto(next) : null);
-            dto.setLastBooking(last != null ? BookingMapper.toShortDto(last) : null);
-        }
-
-        List<CommentDto> commentDtos = comments.stream()
-                .filter(comment -> comment.getItem().equals(item))
-                .map(CommentMapper::toDto)
-                .collect(Collectors.toList());
-        dto.setComments(commentDtos);
-
+        if (bookings != null) {
+            dto.setLastBooking(bookings.getLastBooking());
+            dto.setNextBooking(bookings.getNextBooking());
+        }
+        dto.setComments(comments);
         return dto;
     }
 
+    private List<CommentDto> getLatestComments(long itemId) {
+        CommentCursor first = CommentCursor.FIRST;
+        return CommentMapper.toDto(commentRepo.findPageByItemId(itemId, first.getCreated(), first.getId(),
+                LATEST_COMMENTS));
+    }
+
+    /**
+     * Keyset pages read one row more than the size to tell whether there is a next page.
+     */
+    private static void validatePageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ValidationException("Page size must be from 1 to " + MAX_PAGE_SIZE + ".");
+        }
+    }
+
+    /**
+     * Archived bookings have all ended, so the archive is only looked at when no ended live booking is found.
+     */
     private void validateItemBookingByUser(User user, Item item) {
-        if (!bookingRepo.existsByBookerIdAndItemIdAndEndBefore(user.getId(), item.getId(), LocalDateTime.now())) {
+        if (!bookingRepo.existsByBookerIdAndItemIdAndEndBefore(user.getId(), item.getId(), LocalDateTime.now())
+                && !archiveRepo.existsByBookerIdAndItemId(user.getId(), item.getId())) {
             throw new ValidationException("User never booked this item.");
         }
     }
@@ -204,6 +312,24 @@ public class ItemServiceImpl implements ItemService {
         return item.getOwner().equals(user);
     }
 
+    private Slice<Item> searchIndexed(String text, Pageable pageable) {
+        List<Long> ids = searchIndex.search(text, (int) pageable.getOffset(), pageable.getPageSize() + 1);
+        boolean hasNext = ids.size() > pageable.getPageSize();
+        if (hasNext) {
+            ids = ids.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(findAllInOrder(ids), pageable, hasNext);
+    }
+
+    private List<Item> findAllInOrder(List<Long> ids) {
+        Map<Long, Item> items = itemRepo.findAllById(ids).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return ids.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     private PageRequest getPage(Integer from, Integer size) {
         return PageRequest.of(from / size, size, Sort.by("id").ascending());
     }
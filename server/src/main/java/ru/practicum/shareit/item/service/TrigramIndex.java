@@ -0,0 +1,319 @@
+package ru.practicum.shareit.item.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Inverted index from character trigrams to items. Text is lower-cased, Cyrillic is transliterated to Latin
+ * and everything but letters and digits becomes a word break, so "drel" finds both "дрель" and "drel'".
+ * Items are numbered densely in the order they are first put, and every trigram maps to a sorted int posting list
+ * of these document numbers. A document matches when it contains at least
+ * {@code minSimilarity} of the query trigrams, and matches are ranked by the number of shared trigrams.
+ * Not thread safe for writes; concurrent searches are fine.
+ */
+public class TrigramIndex {
+    private static final int ALPHABET = 37;
+    private static final String[] CYRILLIC = {"a", "b", "v", "g", "d", "e", "zh", "z", "i", "i", "k", "l", "m", "n",
+            "o", "p", "r", "s", "t", "u", "f", "h", "c", "ch", "sh", "sch", "", "y", "", "e", "yu", "ya"};
+
+    private final PostingList[] postings = new PostingList[ALPHABET * ALPHABET * ALPHABET];
+    private final BitSet available = new BitSet();
+    private final AtomicReference<int[]> spareCounts = new AtomicReference<>();
+    private final Map<Long, Integer> docs = new HashMap<>();
+    private final double minSimilarity;
+    private long[] ids = new long[1024];
+    private int[][] documents = new int[1024][];
+    private int size;
+
+    public TrigramIndex(double minSimilarity) {
+        this.minSimilarity = minSimilarity;
+    }
+
+    /**
+     * Adds the document or replaces its previous text and availability.
+     */
+    public void put(long itemId, String text, boolean isAvailable) {
+        put(itemId, trigrams(text), isAvailable);
+    }
+
+    /**
+     * Same as {@link #put(long, String, boolean)} with trigrams computed beforehand by {@link #trigrams}.
+     */
+    public void put(long itemId, int[] grams, boolean isAvailable) {
+        Integer known = docs.get(itemId);
+        int doc;
+        if (known != null) {
+            doc = known;
+            for (int gram : documents[doc]) {
+                postings[gram].remove(doc);
+            }
+        } else {
+            doc = size++;
+            if (doc == documents.length) {
+                ids = Arrays.copyOf(ids, doc * 2);
+                documents = Arrays.copyOf(documents, doc * 2);
+            }
+            ids[doc] = itemId;
+            docs.put(itemId, doc);
+        }
+        for (int gram : grams) {
+            if (postings[gram] == null) {
+                postings[gram] = new PostingList();
+            }
+            postings[gram].add(doc);
+        }
+        documents[doc] = grams;
+        available.set(doc, isAvailable);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * IDs of available documents matching the text, best matches first and by ID among equals.
+     */
+    public List<Long> search(String text, int from, int limit) {
+        int[] grams = trigrams(text);
+        if (grams.length == 0 || limit <= 0) {
+            return List.of();
+        }
+
+        long candidates = 0;
+        for (int gram : grams) {
+            candidates += postings[gram] != null ? postings[gram].size : 0;
+        }
+        if (candidates == 0) {
+            return List.of();
+        }
+
+        int[] dense = candidates * 16 >= size ? takeSpareCounts() : null;
+        Counts counts = dense != null ? new Counts(dense) : new Counts(candidates);
+        for (int gram : grams) {
+            PostingList list = postings[gram];
+            for (int i = 0; list != null && i < list.size; i++) {
+                counts.increment(list.values[i]);
+            }
+        }
+
+        // keys hold the missing trigrams and the document, ranked by compare(); the heap keeps the worst on top
+        // and so the best from + limit of them
+        int required = Math.max(1, (int) Math.ceil(grams.length * minSimilarity - 1e-9));
+        long[] heap = new long[Math.min(from + limit, size)];
+        int found = 0;
+        for (int gram : grams) {
+            PostingList list = postings[gram];
+            for (int i = 0; list != null && i < list.size; i++) {
+                int doc = list.values[i];
+                int count = counts.take(doc);
+                if (count < required || !available.get(doc)) {
+                    continue;
+                }
+                long key = ((long) (grams.length - count) << 32) | doc;
+                if (found < heap.length) {
+                    heap[found++] = key;
+                    siftUp(heap, found - 1);
+                } else if (compare(key, heap[0]) < 0) {
+                    heap[0] = key;
+                    siftDown(heap, found);
+                }
+            }
+        }
+        if (dense != null) {
+            spareCounts.set(dense);
+        }
+        for (int end = found - 1; end > 0; end--) {
+            swap(heap, 0, end);
+            siftDown(heap, end);
+        }
+
+        List<Long> matches = new ArrayList<>(Math.max(0, found - from));
+        for (int i = from; i < found; i++) {
+            matches.add(ids[(int) heap[i]]);
+        }
+        return matches;
+    }
+
+    /**
+     * Distinct sorted trigram codes of the text, each word padded with two leading and one trailing space.
+     */
+    public static int[] trigrams(String text) {
+        String normalized = normalize(text);
+        int[] grams = new int[normalized.length() * 3];
+        int count = 0;
+        for (String word : normalized.split(" ")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            int first = 0;
+            int second = 0;
+            for (int i = 0; i <= word.length(); i++) {
+                int third = i < word.length() ? code(word.charAt(i)) : 0;
+                grams[count++] = (first * ALPHABET + second) * ALPHABET + third;
+                first = second;
+                second = third;
+            }
+        }
+
+        Arrays.sort(grams, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || grams[distinct - 1] != grams[i]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9') {
+                normalized.append(c);
+            } else if (c >= 'а' && c <= 'я') {
+                normalized.append(CYRILLIC[c - 'а']);
+            } else if (c == 'ё') {
+                normalized.append('e');
+            } else {
+                normalized.append(' ');
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Broad queries count into an array over all documents. Every search leaves it zeroed, so the array is
+     * handed from one search to the next instead of being allocated each time.
+     */
+    private int[] takeSpareCounts() {
+        int[] counts = spareCounts.getAndSet(null);
+        return counts != null && counts.length >= size ? counts : new int[documents.length];
+    }
+
+    /**
+     * Orders search keys by shared trigrams descending, then by item ID.
+     */
+    private int compare(long first, long second) {
+        int byMissing = Long.compare(first >>> 32, second >>> 32);
+        return byMissing != 0 ? byMissing : Long.compare(ids[(int) first], ids[(int) second]);
+    }
+
+    private void siftUp(long[] heap, int index) {
+        while (index > 0 && compare(heap[(index - 1) / 2], heap[index]) < 0) {
+            swap(heap, index, (index - 1) / 2);
+            index = (index - 1) / 2;
+        }
+    }
+
+    private void siftDown(long[] heap, int size) {
+        int index = 0;
+        while (2 * index + 1 < size) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (compare(heap[index], heap[child]) >= 0) {
+                return;
+            }
+            swap(heap, index, child);
+            index = child;
+        }
+    }
+
+    private static void swap(long[] heap, int first, int second) {
+        long value = heap[first];
+        heap[first] = heap[second];
+        heap[second] = value;
+    }
+
+    private static int code(char c) {
+        return c <= '9' ? c - '0' + 27 : c - 'a' + 1;
+    }
+
+    /**
+     * Shared trigram counts of the documents of one query. Selective queries touch few postings, so their counts
+     * live in an open addressing table sized by the postings rather than in an array over all documents.
+     */
+    private static final class Counts {
+        private final int[] docs;
+        private final int[] counts;
+        private final int shift;
+
+        Counts(int[] dense) {
+            docs = null;
+            counts = dense;
+            shift = 0;
+        }
+
+        Counts(long candidates) {
+            int capacity = Integer.highestOneBit((int) candidates * 2) << 1;
+            docs = new int[capacity];
+            counts = new int[capacity];
+            shift = Integer.numberOfLeadingZeros(capacity) + 1;
+        }
+
+        void increment(int doc) {
+            counts[slotOf(doc)]++;
+        }
+
+        /**
+         * Returns the document's count and resets it, so a document is only reported once.
+         */
+        int take(int doc) {
+            int slot = slotOf(doc);
+            int count = counts[slot];
+            counts[slot] = 0;
+            return count;
+        }
+
+        private int slotOf(int doc) {
+            if (docs == null) {
+                return doc;
+            }
+            int mask = docs.length - 1;
+            int slot = (doc * 0x9E3779B9) >>> shift;
+            while (docs[slot] != 0 && docs[slot] != doc + 1) {
+                slot = (slot + 1) & mask;
+            }
+            docs[slot] = doc + 1;
+            return slot;
+        }
+    }
+
+    private static final class PostingList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int doc) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            if (size == 0 || values[size - 1] < doc) {
+                values[size++] = doc;
+                return;
+            }
+            int index = Arrays.binarySearch(values, 0, size, doc);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = doc;
+            size++;
+        }
+
+        void remove(int doc) {
+            int index = Arrays.binarySearch(values, 0, size, doc);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+            }
+        }
+    }
+}
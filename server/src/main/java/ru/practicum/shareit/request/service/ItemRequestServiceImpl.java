@@ -6,10 +6,10 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
-import ru.practicum.shareit.item.ItemMapper;
-import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.dto.ItemShortDto;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.ItemRequestMapper;
@@ -19,7 +19,9 @@ import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.service.UserService;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -45,6 +47,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemRequestDto> getByRequester(long userId) {
         log.info("Received get-request with userId {}.", userId);
 
@@ -61,6 +64,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemRequestDto> getAll(long userId, int from, int size) {
         log.info("Received get-request with userId = {}, from = {}, size = {}.",
                 userId, from, size);
@@ -79,6 +83,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemRequestDto getById(long userId, long requestId) {
         log.info("Received get-request with user ID {} and request ID {}", userId, requestId);
 
@@ -89,10 +94,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
                 .map(ItemRequestMapper::toDto)
                 .orElseThrow();
 
-        dto.setItems(itemRepository.findAllByRequestId(dto.getId())
-                .stream()
-                .map(ItemMapper::toShortDto)
-                .collect(Collectors.toList()));
+        dto.setItems(itemRepository.findShortByRequestId(dto.getId()));
 
         log.info("Found request with ID {} for user {}", dto.getId(), user.getId());
         return dto;
@@ -108,13 +110,13 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         List<Long> requestDtoIds = requestDtos.stream()
                 .map(ItemRequestDto::getId)
                 .collect(Collectors.toList());
-        List<Item> items = itemRepository.findAllByRequestIdIn(requestDtoIds);
+        Map<Long, List<ItemShortDto>> items = requestDtoIds.isEmpty() ? Map.of() : itemRepository
+                .findShortByRequestIdIn(requestDtoIds)
+                .stream()
+                .collect(Collectors.groupingBy(ItemShortDto::getRequestId));
 
         requestDtos.forEach(requestDto -> requestDto.setItems(
-                items.stream()
-                        .filter(item -> item.getRequest().getId() == requestDto.getId())
-                        .map(ItemMapper::toShortDto)
-                        .collect(Collectors.toList())));
+                items.getOrDefault(requestDto.getId(), new ArrayList<>())));
     }
 
     private PageRequest getPage(int from, int size) {
@@ -0,0 +1,8 @@
+ALTER TABLE items ADD COLUMN comment_count BIGINT DEFAULT 0 NOT NULL;
+
+UPDATE items SET comment_count = (SELECT COUNT(*) FROM comments WHERE comments.item_id = items.id);
+
+-- Serves both the latest comments of an item and keyset pages of them.
+DROP INDEX idx_comments_item;
+
+CREATE INDEX idx_comments_item_created ON comments (item_id, created DESC, id DESC);
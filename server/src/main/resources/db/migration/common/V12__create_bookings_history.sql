@@ -0,0 +1,9 @@
+-- Live and archived bookings together, for checks and aggregates that cover the whole history of an item.
+CREATE VIEW bookings_history AS
+SELECT id, item_id, booker_id, owner_id, status, start_time, end_time FROM bookings
+UNION ALL
+SELECT id, item_id, booker_id, owner_id, status, start_time, end_time FROM bookings_archive;
+
+CREATE INDEX idx_bookings_archive_booker_item ON bookings_archive (booker_id, item_id);
+
+CREATE INDEX idx_bookings_archive_item_status_end ON bookings_archive (item_id, status, end_time DESC, id DESC);
@@ -0,0 +1,7 @@
+-- A dispatcher claims a batch of events for the lease time before publishing it, so instances don't publish
+-- the same events; an expired claim is taken over by the next poll.
+ALTER TABLE booking_events ADD COLUMN claimed_by VARCHAR(36);
+
+ALTER TABLE booking_events ADD COLUMN claimed_until TIMESTAMP WITHOUT TIME ZONE;
+
+CREATE INDEX idx_booking_events_booking ON booking_events (booking_id, id);
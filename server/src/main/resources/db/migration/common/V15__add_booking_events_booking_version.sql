@@ -0,0 +1,7 @@
+-- Event IDs come from a pooled sequence and only order the events recorded on one instance, so events
+-- of a booking are ordered by the booking version they lead to.
+ALTER TABLE booking_events ADD COLUMN booking_version BIGINT DEFAULT 0 NOT NULL;
+
+DROP INDEX idx_booking_events_booking;
+
+CREATE INDEX idx_booking_events_booking ON booking_events (booking_id, booking_version, id);
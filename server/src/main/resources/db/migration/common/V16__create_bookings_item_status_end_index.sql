@@ -0,0 +1,2 @@
+-- Serves the last approved booking of an item, looked up per item by the item detail and catalog queries.
+CREATE INDEX idx_bookings_item_status_end ON bookings (item_id, status, end_time DESC, id DESC);
@@ -0,0 +1,12 @@
+-- V1 is the schema.sql the service was deployed with, so databases created by it are baselined at V1
+-- and get everything added since from here on.
+ALTER TABLE items ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE bookings ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+
+-- Dropping the identity drops the sequence PostgreSQL created for it under the same name.
+ALTER TABLE bookings ALTER COLUMN id DROP IDENTITY;
+
+CREATE SEQUENCE bookings_id_seq START WITH 1 INCREMENT BY 50;
+
+ALTER TABLE bookings ALTER COLUMN id SET DEFAULT nextval('bookings_id_seq');
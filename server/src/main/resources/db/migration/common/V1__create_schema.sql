@@ -1,6 +1,4 @@
-DROP TABLE IF EXISTS users, item_requests, items, bookings, comments;
-
-CREATE TABLE IF NOT EXISTS users (
+CREATE TABLE users (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     name VARCHAR(255) NOT NULL,
     email VARCHAR(255) NOT NULL,
@@ -8,7 +6,7 @@ CREATE TABLE IF NOT EXISTS users (
     CONSTRAINT UQ_USER_EMAIL UNIQUE (email)
 );
 
-CREATE TABLE IF NOT EXISTS item_requests (
+CREATE TABLE item_requests (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     description VARCHAR(512) NOT NULL,
     requester_id BIGINT NOT NULL,
@@ -18,7 +16,7 @@ CREATE TABLE IF NOT EXISTS item_requests (
         REFERENCES users(id)
 );
 
-CREATE TABLE IF NOT EXISTS items (
+CREATE TABLE items (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     name VARCHAR(255) NOT NULL,
     description VARCHAR(512) NOT NULL,
@@ -32,7 +30,7 @@ CREATE TABLE IF NOT EXISTS items (
         REFERENCES item_requests(id)
 );
 
-CREATE TABLE IF NOT EXISTS bookings (
+CREATE TABLE bookings (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     item_id BIGINT NOT NULL,
     booker_id BIGINT NOT NULL,
@@ -46,7 +44,7 @@ CREATE TABLE IF NOT EXISTS bookings (
         REFERENCES users(id)
 );
 
-CREATE TABLE IF NOT EXISTS comments (
+CREATE TABLE comments (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     text VARCHAR(512) NOT NULL,
     item_id BIGINT NOT NULL,
@@ -57,4 +55,4 @@ CREATE TABLE IF NOT EXISTS comments (
         REFERENCES items(id),
     CONSTRAINT fk_author_id_to_author FOREIGN KEY (author_id)
         REFERENCES users(id)
-)
\ No newline at end of file
+);
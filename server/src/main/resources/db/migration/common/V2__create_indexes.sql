@@ -0,0 +1,15 @@
+CREATE INDEX idx_bookings_booker_start ON bookings (booker_id, start_time DESC, id DESC);
+
+CREATE INDEX idx_bookings_item_status_start ON bookings (item_id, status, start_time);
+
+CREATE INDEX idx_bookings_booker_item_end ON bookings (booker_id, item_id, end_time);
+
+CREATE INDEX idx_items_owner ON items (owner, id);
+
+CREATE INDEX idx_items_request ON items (request_id);
+
+CREATE INDEX idx_comments_item ON comments (item_id);
+
+CREATE INDEX idx_comments_author ON comments (author_id);
+
+CREATE INDEX idx_item_requests_requester_created ON item_requests (requester_id, created DESC);
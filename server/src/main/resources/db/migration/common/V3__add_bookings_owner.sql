@@ -0,0 +1,11 @@
+ALTER TABLE bookings ADD COLUMN owner_id BIGINT;
+
+UPDATE bookings SET owner_id = (SELECT i.owner FROM items i WHERE i.id = bookings.item_id);
+
+ALTER TABLE bookings ALTER COLUMN owner_id SET NOT NULL;
+
+ALTER TABLE bookings ADD CONSTRAINT fk_booking_owner_id_to_user FOREIGN KEY (owner_id) REFERENCES users(id);
+
+CREATE INDEX idx_bookings_owner_start ON bookings (owner_id, start_time DESC, id DESC);
+
+CREATE INDEX idx_bookings_owner_status_start ON bookings (owner_id, status, start_time DESC, id DESC);
@@ -0,0 +1,14 @@
+CREATE SEQUENCE booking_events_id_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE booking_events (
+    id BIGINT DEFAULT nextval('booking_events_id_seq') NOT NULL,
+    type VARCHAR(16) NOT NULL,
+    booking_id BIGINT NOT NULL,
+    item_id BIGINT NOT NULL,
+    booker_id BIGINT NOT NULL,
+    owner_id BIGINT NOT NULL,
+    start_time TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_time TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_booking_event PRIMARY KEY (id)
+);
@@ -0,0 +1,21 @@
+CREATE TABLE bookings_archive (
+    id BIGINT NOT NULL,
+    item_id BIGINT NOT NULL,
+    booker_id BIGINT NOT NULL,
+    owner_id BIGINT NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    start_time TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_time TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL,
+    CONSTRAINT pk_booking_archive PRIMARY KEY (id),
+    CONSTRAINT fk_booking_archive_item_id_to_item FOREIGN KEY (item_id)
+        REFERENCES items(id),
+    CONSTRAINT fk_booking_archive_booker_id_to_user FOREIGN KEY (booker_id)
+        REFERENCES users(id),
+    CONSTRAINT fk_booking_archive_owner_id_to_user FOREIGN KEY (owner_id)
+        REFERENCES users(id)
+);
+
+CREATE INDEX idx_bookings_archive_booker_start ON bookings_archive (booker_id, start_time DESC, id DESC);
+
+CREATE INDEX idx_bookings_archive_owner_start ON bookings_archive (owner_id, start_time DESC, id DESC);
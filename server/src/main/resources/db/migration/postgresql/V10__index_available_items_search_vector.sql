@@ -0,0 +1,4 @@
+-- Search only ever looks at available items, so index just those.
+DROP INDEX idx_items_search_vector;
+
+CREATE INDEX idx_items_search_vector_available ON items USING gin (search_vector) WHERE available;
@@ -0,0 +1,57 @@
+DROP FUNCTION archive_bookings_partitions(DATE);
+
+-- Only detaches the monthly partitions that ended before the cutoff. DETACH takes an ACCESS EXCLUSIVE lock
+-- on bookings, so it runs in a transaction of its own that changes nothing but the catalog and gives up
+-- rather than queue behind long readers.
+CREATE FUNCTION detach_bookings_partitions(cutoff DATE) RETURNS INTEGER AS $$
+DECLARE
+    partition_name TEXT;
+    detached INTEGER := 0;
+BEGIN
+    PERFORM set_config('lock_timeout', '5s', true);
+    FOR partition_name IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'bookings'::regclass
+          AND c.relname ~ '^bookings_[0-9]{4}_[0-9]{2}$'
+          AND to_date(substring(c.relname FROM 10), 'YYYY_MM') + INTERVAL '1 month' <= cutoff
+        ORDER BY c.relname
+    LOOP
+        EXECUTE format('ALTER TABLE bookings DETACH PARTITION %I', partition_name);
+        detached := detached + 1;
+    END LOOP;
+    RETURN detached;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Monthly tables that are no longer attached to bookings and wait to be archived, including the ones left
+-- over by an earlier run that failed after detaching them.
+CREATE FUNCTION detached_bookings_partitions(cutoff DATE) RETURNS SETOF TEXT AS $$
+    SELECT c.relname::TEXT
+    FROM pg_class c
+    WHERE c.relkind = 'r'
+      AND c.relnamespace = current_schema()::regnamespace
+      AND c.relname ~ '^bookings_[0-9]{4}_[0-9]{2}$'
+      AND to_date(substring(c.relname FROM 10), 'YYYY_MM') + INTERVAL '1 month' <= cutoff
+      AND NOT EXISTS (SELECT 1 FROM pg_inherits i WHERE i.inhrelid = c.oid)
+    ORDER BY c.relname;
+$$ LANGUAGE sql STABLE;
+
+-- Moves the rows of one detached partition into bookings_archive and drops it. Bookings itself is not
+-- locked; rows already archived by an interrupted run are skipped.
+CREATE FUNCTION archive_bookings_partition(partition_name TEXT) RETURNS BIGINT AS $$
+DECLARE
+    moved BIGINT;
+BEGIN
+    EXECUTE format('INSERT INTO bookings_archive '
+                       || '(id, item_id, booker_id, owner_id, status, start_time, end_time, version) '
+                       || 'SELECT id, item_id, booker_id, owner_id, status, start_time, end_time, version FROM %I '
+                       || 'ON CONFLICT (id) DO NOTHING',
+                   partition_name);
+    GET DIAGNOSTICS moved = ROW_COUNT;
+    EXECUTE format('DELETE FROM booking_approved_slots WHERE booking_id IN (SELECT id FROM %I)', partition_name);
+    EXECUTE format('DROP TABLE %I', partition_name);
+    RETURN moved;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,3 @@
+-- Bookings of a baselined database keep their identity values; the pooled generator hands out
+-- the 50 IDs up to the sequence value, so the first of them has to be above the existing ones.
+SELECT setval('bookings_id_seq', COALESCE(MAX(id), 0) + 50, false) FROM bookings;
@@ -0,0 +1,108 @@
+CREATE TABLE bookings_partitioned (
+    id BIGINT DEFAULT nextval('bookings_id_seq') NOT NULL,
+    item_id BIGINT NOT NULL,
+    booker_id BIGINT NOT NULL,
+    owner_id BIGINT NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    start_time TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_time TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL
+) PARTITION BY RANGE (end_time);
+
+CREATE TABLE bookings_default PARTITION OF bookings_partitioned DEFAULT;
+
+INSERT INTO bookings_partitioned (id, item_id, booker_id, owner_id, status, start_time, end_time, version)
+SELECT id, item_id, booker_id, owner_id, status, start_time, end_time, version FROM bookings;
+
+DROP TABLE bookings;
+
+ALTER TABLE bookings_partitioned RENAME TO bookings;
+
+ALTER TABLE bookings ADD CONSTRAINT pk_booking PRIMARY KEY (id, end_time);
+
+ALTER TABLE bookings ADD CONSTRAINT fk_booking_item_id_to_item FOREIGN KEY (item_id) REFERENCES items(id);
+
+ALTER TABLE bookings ADD CONSTRAINT fk_booker_id_to_user FOREIGN KEY (booker_id) REFERENCES users(id);
+
+ALTER TABLE bookings ADD CONSTRAINT fk_booking_owner_id_to_user FOREIGN KEY (owner_id) REFERENCES users(id);
+
+CREATE INDEX idx_bookings_booker_start ON bookings (booker_id, start_time DESC, id DESC);
+
+CREATE INDEX idx_bookings_item_status_start ON bookings (item_id, status, start_time);
+
+CREATE INDEX idx_bookings_booker_item_end ON bookings (booker_id, item_id, end_time);
+
+CREATE INDEX idx_bookings_owner_start ON bookings (owner_id, start_time DESC, id DESC);
+
+CREATE INDEX idx_bookings_owner_status_start ON bookings (owner_id, status, start_time DESC, id DESC);
+
+CREATE INDEX idx_bookings_status_start ON bookings (status, start_time, id);
+
+-- Creates the monthly partition bookings_YYYY_MM holding bookings that end within the month of the given date,
+-- moving such rows out of the default partition first. Returns false if the partition already exists.
+CREATE FUNCTION create_bookings_partition(month DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    from_time TIMESTAMP := date_trunc('month', month);
+    to_time TIMESTAMP := date_trunc('month', month) + INTERVAL '1 month';
+    partition_name TEXT := 'bookings_' || to_char(from_time, 'YYYY_MM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE bookings INCLUDING DEFAULTS)', partition_name);
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (end_time >= %L AND end_time < %L)',
+                   partition_name, partition_name || '_range', from_time, to_time);
+    EXECUTE format('INSERT INTO %I SELECT * FROM bookings_default WHERE end_time >= %L AND end_time < %L',
+                   partition_name, from_time, to_time);
+    DELETE FROM bookings_default WHERE end_time >= from_time AND end_time < to_time;
+    EXECUTE format('ALTER TABLE bookings ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, from_time, to_time);
+    EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', partition_name, partition_name || '_range');
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Moves every monthly partition that ends on or before the cutoff into bookings_archive
+-- and drops it. Returns the number of archived bookings.
+CREATE FUNCTION archive_bookings_partitions(cutoff DATE) RETURNS BIGINT AS $$
+DECLARE
+    partition_name TEXT;
+    moved BIGINT;
+    archived BIGINT := 0;
+BEGIN
+    FOR partition_name IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'bookings'::regclass
+          AND c.relname ~ '^bookings_[0-9]{4}_[0-9]{2}$'
+          AND to_date(substring(c.relname FROM 10), 'YYYY_MM') + INTERVAL '1 month' <= cutoff
+        ORDER BY c.relname
+    LOOP
+        EXECUTE format('ALTER TABLE bookings DETACH PARTITION %I', partition_name);
+        EXECUTE format('INSERT INTO bookings_archive '
+                           || '(id, item_id, booker_id, owner_id, status, start_time, end_time, version) '
+                           || 'SELECT id, item_id, booker_id, owner_id, status, start_time, end_time, version FROM %I',
+                       partition_name);
+        GET DIAGNOSTICS moved = ROW_COUNT;
+        EXECUTE format('DROP TABLE %I', partition_name);
+        archived := archived + moved;
+    END LOOP;
+    RETURN archived;
+END;
+$$ LANGUAGE plpgsql;
+
+DO $$
+DECLARE
+    month DATE;
+BEGIN
+    FOR month IN
+        SELECT generate_series(date_trunc('month', COALESCE((SELECT min(end_time) FROM bookings), now())),
+                               date_trunc('month', now()) + INTERVAL '3 months',
+                               INTERVAL '1 month')::DATE
+    LOOP
+        PERFORM create_bookings_partition(month);
+    END LOOP;
+END;
+$$;
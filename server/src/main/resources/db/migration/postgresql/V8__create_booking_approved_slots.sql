@@ -0,0 +1,67 @@
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- Periods of APPROVED bookings, maintained by a trigger on bookings. Partitioned tables can't have
+-- exclusion constraints that don't include the partition key, so the constraint lives here.
+CREATE TABLE booking_approved_slots (
+    booking_id BIGINT NOT NULL,
+    item_id BIGINT NOT NULL,
+    period TSRANGE NOT NULL,
+    CONSTRAINT pk_booking_approved_slot PRIMARY KEY (booking_id),
+    CONSTRAINT ex_booking_approved_slots_overlap EXCLUDE USING gist (item_id WITH =, period WITH &&)
+);
+
+-- Bookings approved before the constraint existed keep their slots in start order;
+-- later ones overlapping them are left without a slot.
+INSERT INTO booking_approved_slots (booking_id, item_id, period)
+SELECT id, item_id, tsrange(start_time, end_time) FROM bookings
+WHERE status = 'APPROVED'
+ORDER BY start_time, id
+ON CONFLICT DO NOTHING;
+
+-- Deletes are deliberately ignored: rows only leave bookings when partitions are reorganized or archived,
+-- and archive_bookings_partitions drops their slots itself.
+CREATE FUNCTION sync_booking_approved_slot() RETURNS TRIGGER AS $$
+BEGIN
+    IF NEW.status = 'APPROVED' THEN
+        INSERT INTO booking_approved_slots (booking_id, item_id, period)
+        VALUES (NEW.id, NEW.item_id, tsrange(NEW.start_time, NEW.end_time))
+        ON CONFLICT (booking_id) DO UPDATE SET item_id = EXCLUDED.item_id, period = EXCLUDED.period;
+    ELSIF TG_OP = 'UPDATE' AND OLD.status = 'APPROVED' THEN
+        DELETE FROM booking_approved_slots WHERE booking_id = OLD.id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_bookings_approved_slot
+    AFTER INSERT OR UPDATE OF status, item_id, start_time, end_time ON bookings
+    FOR EACH ROW EXECUTE FUNCTION sync_booking_approved_slot();
+
+CREATE OR REPLACE FUNCTION archive_bookings_partitions(cutoff DATE) RETURNS BIGINT AS $$
+DECLARE
+    partition_name TEXT;
+    moved BIGINT;
+    archived BIGINT := 0;
+BEGIN
+    FOR partition_name IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'bookings'::regclass
+          AND c.relname ~ '^bookings_[0-9]{4}_[0-9]{2}$'
+          AND to_date(substring(c.relname FROM 10), 'YYYY_MM') + INTERVAL '1 month' <= cutoff
+        ORDER BY c.relname
+    LOOP
+        EXECUTE format('ALTER TABLE bookings DETACH PARTITION %I', partition_name);
+        EXECUTE format('INSERT INTO bookings_archive '
+                           || '(id, item_id, booker_id, owner_id, status, start_time, end_time, version) '
+                           || 'SELECT id, item_id, booker_id, owner_id, status, start_time, end_time, version FROM %I',
+                       partition_name);
+        GET DIAGNOSTICS moved = ROW_COUNT;
+        EXECUTE format('DELETE FROM booking_approved_slots WHERE booking_id IN (SELECT id FROM %I)', partition_name);
+        EXECUTE format('DROP TABLE %I', partition_name);
+        archived := archived + moved;
+    END LOOP;
+    RETURN archived;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,13 @@
+-- Russian stemming for Cyrillic words and English stemming (with English stop words) for Latin ones,
+-- so mixed-language names are stemmed once per word and ranked consistently.
+CREATE TEXT SEARCH CONFIGURATION shareit (COPY = russian);
+ALTER TEXT SEARCH CONFIGURATION shareit
+    ALTER MAPPING FOR asciiword, asciihword, hword_asciipart WITH english_stem;
+
+-- Name ranked above description.
+ALTER TABLE items ADD COLUMN search_vector TSVECTOR GENERATED ALWAYS AS (
+    setweight(to_tsvector('shareit', name), 'A') ||
+    setweight(to_tsvector('shareit', description), 'B')
+) STORED;
+
+CREATE INDEX idx_items_search_vector ON items USING gin (search_vector);
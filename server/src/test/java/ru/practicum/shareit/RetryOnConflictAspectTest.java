@@ -0,0 +1,52 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RetryOnConflictAspectTest {
+    private ConflictingService service;
+    private ConflictingService proxy;
+
+    @BeforeEach
+    void setUp() {
+        service = new ConflictingService();
+        AspectJProxyFactory factory = new AspectJProxyFactory(service);
+        factory.addAspect(new RetryOnConflictAspect());
+        proxy = factory.getProxy();
+    }
+
+    @Test
+    void shouldRetryUntilMethodSucceeds() {
+        service.conflicts = 2;
+
+        assertEquals("done", proxy.update());
+        assertEquals(3, service.calls);
+    }
+
+    @Test
+    void shouldRethrowConflictWhenAttemptsAreExhausted() {
+        service.conflicts = 3;
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> proxy.update());
+        assertEquals(3, service.calls);
+    }
+
+    static class ConflictingService {
+        private int conflicts;
+        private int calls;
+
+        @RetryOnConflict
+        public String update() {
+            calls++;
+            if (calls <= conflicts) {
+                throw new ObjectOptimisticLockingFailureException(Object.class, 1L);
+            }
+            return "done";
+        }
+    }
+}
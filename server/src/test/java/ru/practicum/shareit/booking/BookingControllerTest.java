@@ -9,21 +9,37 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingCreationDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPage;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemShortDto;
 import ru.practicum.shareit.user.dto.UserShortDto;
+import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(value = BookingController.class)
@@ -34,6 +50,8 @@ class BookingControllerTest {
     private ObjectMapper mapper;
     @MockBean
     private BookingService bookingService;
+    @MockBean
+    private UserService userService;
 
     private BookingCreationDto creationDto;
     private BookingDto dto1;
@@ -98,6 +116,28 @@ class BookingControllerTest {
         verify(bookingService).create(1L, creationDto);
     }
 
+    @Test
+    @SneakyThrows
+    void shouldReturnPerEntryResultsWhenCreatingBatch() {
+        List<BookingCreationDto> batch = List.of(creationDto, creationDto);
+        when(bookingService.createBatch(1L, batch)).thenReturn(List.of(
+                BookingBatchResultDto.builder().index(0).booking(dto1).build(),
+                BookingBatchResultDto.builder().index(1).error("Item is already booked for these dates.").build()));
+
+        mockMvc.perform(post("/bookings/batch")
+                .header("X-Sharer-User-Id", 1L)
+                .content(mapper.writeValueAsString(batch))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].booking.item.id").value(dto1.getItem().getId()))
+                .andExpect(jsonPath("$[0].error").doesNotExist())
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].booking").doesNotExist())
+                .andExpect(jsonPath("$[1].error").value("Item is already booked for these dates."));
+        verify(bookingService).createBatch(1L, batch);
+    }
+
     @Test
     @SneakyThrows
     void shouldReturnApprovedBookingConnectedWithUserAndItem() {
@@ -125,6 +165,24 @@ class BookingControllerTest {
         verify(bookingService).approve(1L, 1L, true);
     }
 
+    @Test
+    @SneakyThrows
+    void shouldReturnTransitionedIdsWhenApprovingInBulk() {
+        BookingApprovalDto approvalDto = new BookingApprovalDto(null, 1L);
+        when(bookingService.approveAll(1L, approvalDto, true)).thenReturn(List.of(3L, 5L));
+
+        mockMvc.perform(patch("/bookings/bulk")
+                .header("X-Sharer-User-Id", 1L)
+                .param("approved", "true")
+                .content(mapper.writeValueAsString(approvalDto))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0]").value(3L))
+                .andExpect(jsonPath("$[1]").value(5L));
+        verify(bookingService).approveAll(1L, approvalDto, true);
+    }
+
     @Test
     @SneakyThrows
     void shouldReturnBookingByBookingId() {
@@ -245,4 +303,103 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$[1].booker.name").value(dto2.getBooker().getName()));
         verify(bookingService).getByOwnerId(1L, "ALL", 1, 20);
     }
-}
\ No newline at end of file
+
+    @Test
+    @SneakyThrows
+    void shouldReturnBookingCountsByBookerAndOwner() {
+        when(bookingService.countByBookerId(1L)).thenReturn(new BookingCountsDto(4, 1, 1, 2, 1, 0));
+        when(bookingService.countByOwnerId(1L)).thenReturn(new BookingCountsDto(2, 0, 0, 2, 2, 0));
+
+        mockMvc.perform(get("/bookings/counts")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.all").value(4))
+                .andExpect(jsonPath("$.current").value(1))
+                .andExpect(jsonPath("$.past").value(1))
+                .andExpect(jsonPath("$.future").value(2))
+                .andExpect(jsonPath("$.waiting").value(1))
+                .andExpect(jsonPath("$.rejected").value(0));
+
+        mockMvc.perform(get("/bookings/owner/counts")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.all").value(2))
+                .andExpect(jsonPath("$.waiting").value(2));
+        verify(bookingService).countByBookerId(1L);
+        verify(bookingService).countByOwnerId(1L);
+    }
+
+    @Test
+    @SneakyThrows
+    void shouldReturnArchivedBookingsOfBookerAndOwner() {
+        when(bookingService.getArchivedByBookerId(1L, 0, 10)).thenReturn(List.of(dto1));
+        when(bookingService.getArchivedByOwnerId(1L, 10, 10)).thenReturn(List.of(dto2));
+
+        mockMvc.perform(get("/bookings/history")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].item.name").value(dto1.getItem().getName()));
+
+        mockMvc.perform(get("/bookings/owner/history")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("from", "10")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].item.name").value(dto2.getItem().getName()));
+        verify(bookingService).getArchivedByBookerId(1L, 0, 10);
+        verify(bookingService).getArchivedByOwnerId(1L, 10, 10);
+    }
+
+    @Test
+    @SneakyThrows
+    void shouldStreamBookingsAsNdjson() {
+        doAnswer(invocation -> {
+            Consumer<BookingDto> action = invocation.getArgument(1);
+            action.accept(dto1);
+            action.accept(dto2);
+            return null;
+        }).when(bookingService).exportByOwnerId(eq(1L), any());
+
+        MvcResult result = mockMvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(mapper.writeValueAsString(dto1), lines[0]);
+        assertEquals(mapper.writeValueAsString(dto2), lines[1]);
+    }
+
+    @Test
+    @SneakyThrows
+    void shouldReturnNotFoundWhenExportingBookingsOfUnknownUser() {
+        when(userService.getById(99L)).thenThrow(new NotFoundException("User with this ID is not found"));
+
+        mockMvc.perform(get("/bookings/export")
+                        .header("X-Sharer-User-Id", 99L))
+                .andExpect(status().isNotFound());
+        verify(bookingService, never()).exportByBookerId(eq(99L), any());
+    }
+
+    @Test
+    @SneakyThrows
+    void shouldReturnNextCursorHeaderWhenPagingOwnerBookingsByCursor() {
+        when(bookingService.getPageByOwnerId(1L, "ALL", "", 1))
+                .thenReturn(new BookingPage(List.of(dto1), "next"));
+
+        mockMvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("state", "ALL")
+                        .param("cursor", "")
+                        .param("size", "1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next"))
+                .andExpect(jsonPath("$[0].booker.name").value(dto1.getBooker().getName()));
+        verify(bookingService).getPageByOwnerId(1L, "ALL", "", 1);
+    }
+}
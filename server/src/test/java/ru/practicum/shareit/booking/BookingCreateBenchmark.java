@@ -0,0 +1,113 @@
+package ru.practicum.shareit.booking;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.dto.BookingCreationDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of BookingService.create for an item that already has {@code bookingsPerItem} upcoming bookings,
+ * for a free interval and for one overlapping an existing booking. Every call runs in a transaction that
+ * is rolled back, so the item keeps the same bookings. Runs on the in-memory H2 database of the tests
+ * unless spring.datasource.* system properties point it elsewhere.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingCreateBenchmark {
+    @Param({"10000"})
+    private int bookingsPerItem;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private TransactionTemplate rolledBack;
+    private long bookerId;
+    private BookingCreationDto free;
+    private BookingCreationDto overlapping;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItServer.class)
+                .web(WebApplicationType.NONE)
+                .run();
+        bookingService = context.getBean(BookingService.class);
+        rolledBack = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        UserRepository userRepo = context.getBean(UserRepository.class);
+        String suffix = System.nanoTime() + "@bench.ru";
+        User owner = userRepo.save(User.builder().name("Owner").email("owner" + suffix).build());
+        User booker = userRepo.save(User.builder().name("Booker").email("booker" + suffix).build());
+        Item item = context.getBean(ItemRepository.class).save(Item.builder()
+                .name("Drill").description("Cordless drill").available(true).owner(owner).build());
+
+        LocalDateTime base = LocalDateTime.now().plusDays(1).withNano(0);
+        List<Booking> bookings = new ArrayList<>(bookingsPerItem);
+        for (int i = 0; i < bookingsPerItem; i++) {
+            LocalDateTime start = base.plusHours(2L * i);
+            bookings.add(Booking.builder().item(item).booker(booker).start(start).end(start.plusHours(1))
+                    .status(i % 2 == 0 ? Status.APPROVED : Status.WAITING).build());
+        }
+        context.getBean(BookingRepository.class).saveAll(bookings);
+
+        LocalDateTime middle = base.plusHours(bookingsPerItem);
+        bookerId = booker.getId();
+        free = new BookingCreationDto(middle.plusHours(1), middle.plusHours(2), item.getId());
+        overlapping = new BookingCreationDto(middle.minusMinutes(30), middle.plusMinutes(30), item.getId());
+        createFreeBooking();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookingDto createFreeBooking() {
+        return rolledBack.execute(status -> {
+            status.setRollbackOnly();
+            return bookingService.create(bookerId, free);
+        });
+    }
+
+    @Benchmark
+    public BookingDto rejectOverlappingBooking() {
+        return rolledBack.execute(status -> {
+            status.setRollbackOnly();
+            try {
+                return bookingService.create(bookerId, overlapping);
+            } catch (ValidationException e) {
+                return null;
+            }
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BookingCreateBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,82 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.outbox.BookingEvent;
+import ru.practicum.shareit.booking.outbox.BookingEventDispatcher;
+import ru.practicum.shareit.booking.outbox.BookingEventRepository;
+import ru.practicum.shareit.booking.outbox.BookingEventSink;
+import ru.practicum.shareit.booking.outbox.BookingEventType;
+import ru.practicum.shareit.booking.outbox.InMemoryBookingEventSink;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingEventDispatcherTest {
+    private static final Duration LEASE = Duration.ofMinutes(1);
+
+    @Mock
+    private BookingEventRepository eventRepository;
+
+    @Test
+    void shouldPublishBatchAndDeleteDeliveredEvents() {
+        InMemoryBookingEventSink sink = new InMemoryBookingEventSink();
+        BookingEventDispatcher dispatcher = new BookingEventDispatcher(eventRepository, sink, 10, 2, LEASE);
+        List<BookingEvent> events = List.of(event(1L, 1L, BookingEventType.CREATED),
+                event(2L, 2L, BookingEventType.CREATED),
+                event(3L, 1L, BookingEventType.APPROVED));
+        when(eventRepository.claim(anyString(), any(), any(), anyInt())).thenReturn(events);
+
+        assertEquals(3, dispatcher.dispatch());
+
+        assertEquals(3, sink.getEvents().size());
+        assertEquals(List.of(events.get(0), events.get(2)), sink.getEvents().stream()
+                .filter(event -> event.getBookingId() == 1L)
+                .collect(Collectors.toList()));
+        verify(eventRepository).deleteAllByIdInBatch(any());
+        verify(eventRepository, never()).release(anyString());
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void shouldKeepFailedEventAndFollowingEventsOfItsBookingForRetry() {
+        BookingEvent failing = event(1L, 1L, BookingEventType.CREATED);
+        InMemoryBookingEventSink delivered = new InMemoryBookingEventSink();
+        BookingEventSink sink = event -> {
+            if (event == failing) {
+                throw new IllegalStateException("Sink is unavailable.");
+            }
+            delivered.publish(event);
+        };
+        BookingEventDispatcher dispatcher = new BookingEventDispatcher(eventRepository, sink, 10, 1, LEASE);
+        BookingEvent next = event(2L, 1L, BookingEventType.APPROVED);
+        when(eventRepository.claim(anyString(), any(), any(), anyInt())).thenReturn(List.of(failing, next));
+
+        assertEquals(0, dispatcher.dispatch());
+
+        assertEquals(List.of(), delivered.getEvents());
+        verify(eventRepository, never()).deleteAllByIdInBatch(any());
+        verify(eventRepository).release(anyString());
+        dispatcher.shutdown();
+    }
+
+    private BookingEvent event(long id, long bookingId, BookingEventType type) {
+        return BookingEvent.builder()
+                .id(id)
+                .bookingId(bookingId)
+                .type(type)
+                .build();
+    }
+}
@@ -0,0 +1,92 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingIntervalIndexBenchmark {
+    @Param({"10000"})
+    private int bookingsPerItem;
+
+    private BookingIntervalIndex index;
+    private Booking freeSlot;
+    private LocalDateTime busyStart;
+    private LocalDateTime busyEnd;
+
+    @Setup
+    public void setUp() {
+        Item item = Item.builder().id(1L).build();
+        LocalDateTime base = LocalDateTime.of(2030, 1, 1, 0, 0);
+        List<Booking> bookings = new ArrayList<>(bookingsPerItem);
+        for (int i = 0; i < bookingsPerItem; i++) {
+            LocalDateTime start = base.plusHours(2L * i);
+            bookings.add(Booking.builder()
+                    .id(i + 1L)
+                    .item(item)
+                    .start(start)
+                    .end(start.plusHours(1))
+                    .status(Status.APPROVED)
+                    .build());
+        }
+
+        BookingRepository repository = Mockito.mock(BookingRepository.class);
+        Mockito.when(repository.findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any()))
+                .thenReturn(bookings);
+        Mockito.when(repository.existsByIdAndStatusIn(anyLong(), anyCollection())).thenReturn(true);
+        index = new BookingIntervalIndex(repository, new SimpleMeterRegistry(), Duration.ofHours(1), 10000);
+
+        LocalDateTime middle = base.plusHours(bookingsPerItem);
+        freeSlot = Booking.builder()
+                .id(bookingsPerItem + 1L)
+                .item(item)
+                .start(middle.plusHours(1))
+                .end(middle.plusHours(2))
+                .status(Status.WAITING)
+                .build();
+        busyStart = middle.minusMinutes(30);
+        busyEnd = middle.plusMinutes(30);
+        index.overlaps(item.getId(), busyStart, busyEnd);
+    }
+
+    @Benchmark
+    public boolean rejectOverlappingBooking() {
+        return index.overlaps(freeSlot.getItem().getId(), busyStart, busyEnd);
+    }
+
+    @Benchmark
+    public boolean createNonOverlappingBooking() {
+        boolean free = !index.overlaps(freeSlot.getItem().getId(), freeSlot.getStart(), freeSlot.getEnd())
+                && index.tryReserve(freeSlot);
+        index.release(freeSlot);
+        return free;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BookingIntervalIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,149 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingIntervalIndexTest {
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private BookingIntervalIndex index;
+    private Item item;
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookingIntervalIndex(bookingRepository, new SimpleMeterRegistry(), Duration.ofMinutes(10), 2);
+        item = Item.builder().id(1L).name("item").build();
+        base = LocalDateTime.of(2030, 1, 1, 12, 0);
+    }
+
+    @Test
+    void shouldDetectOverlapWithLoadedBookingsAndLoadItemOnlyOnce() {
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any()))
+                .thenReturn(List.of(booking(1L, base, base.plusDays(2))));
+        when(bookingRepository.existsByIdAndStatusIn(anyLong(), anyCollection())).thenReturn(true);
+
+        assertTrue(index.overlaps(item.getId(), base.plusDays(1), base.plusDays(3)));
+        assertTrue(index.overlaps(item.getId(), base.minusDays(1), base.plusHours(1)));
+        assertFalse(index.overlaps(item.getId(), base.plusDays(2), base.plusDays(3)));
+        assertFalse(index.overlaps(item.getId(), base.minusDays(1), base));
+        verify(bookingRepository, times(1)).findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any());
+    }
+
+    @Test
+    void shouldDetectOverlapWithLongBookingCoveringLaterStarts() {
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any()))
+                .thenReturn(List.of(booking(1L, base, base.plusDays(30)),
+                        booking(2L, base.plusDays(1), base.plusDays(2))));
+        when(bookingRepository.existsByIdAndStatusIn(anyLong(), anyCollection())).thenReturn(true);
+
+        assertTrue(index.overlaps(item.getId(), base.plusDays(10), base.plusDays(11)));
+        assertFalse(index.overlaps(item.getId(), base.plusDays(30), base.plusDays(31)));
+    }
+
+    @Test
+    void shouldReserveFreeIntervalAndRejectOverlappingOne() {
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any()))
+                .thenReturn(List.of());
+        when(bookingRepository.existsByIdAndStatusIn(1L, EnumSet.of(Status.WAITING, Status.APPROVED)))
+                .thenReturn(true);
+
+        assertTrue(index.tryReserve(booking(1L, base, base.plusDays(1))));
+        assertTrue(index.tryReserve(booking(1L, base, base.plusDays(1))));
+        assertFalse(index.tryReserve(booking(2L, base.plusHours(12), base.plusDays(2))));
+        assertTrue(index.tryReserve(booking(3L, base.plusDays(1), base.plusDays(2))));
+    }
+
+    @Test
+    void shouldFreeIntervalAfterRelease() {
+        Booking booking = booking(1L, base, base.plusDays(1));
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any()))
+                .thenReturn(List.of(booking));
+        when(bookingRepository.existsByIdAndStatusIn(anyLong(), anyCollection())).thenReturn(true);
+
+        assertTrue(index.overlaps(item.getId(), base, base.plusHours(1)));
+        index.release(booking);
+        assertFalse(index.overlaps(item.getId(), base, base.plusHours(1)));
+    }
+
+    @Test
+    void shouldReloadItemWhenDatabaseDoesNotConfirmConflict() {
+        Booking cancelledElsewhere = booking(1L, base, base.plusDays(1));
+        Booking booking = booking(2L, base, base.plusDays(1));
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any()))
+                .thenReturn(List.of(cancelledElsewhere), List.of(booking));
+
+        assertTrue(index.tryReserve(booking));
+        assertFalse(index.overlaps(item.getId(), base.plusDays(1), base.plusDays(2)));
+        verify(bookingRepository, times(2)).findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any());
+    }
+
+    @Test
+    void shouldEvictExpiredAndLeastRecentlyUsedItems() {
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any()))
+                .thenReturn(List.of());
+        index.overlaps(1L, base, base.plusDays(1));
+        index.overlaps(2L, base, base.plusDays(1));
+        index.overlaps(3L, base, base.plusDays(1));
+        index.overlaps(1L, base, base.plusDays(1));
+
+        assertEquals(1, index.evict(base));
+        index.overlaps(1L, base, base.plusDays(1));
+        index.overlaps(3L, base, base.plusDays(1));
+        verify(bookingRepository, times(3)).findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any());
+
+        index = new BookingIntervalIndex(bookingRepository, new SimpleMeterRegistry(), Duration.ZERO, 2);
+        index.overlaps(1L, base, base.plusDays(1));
+        assertEquals(1, index.evict(base));
+    }
+
+    @Test
+    void shouldPruneEndedIntervals() {
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any()))
+                .thenReturn(List.of(booking(1L, base, base.plusDays(1)),
+                        booking(2L, base.plusDays(2), base.plusDays(3))));
+        when(bookingRepository.existsByIdAndStatusIn(anyLong(), anyCollection())).thenReturn(true);
+        assertTrue(index.overlaps(item.getId(), base, base.plusDays(3)));
+
+        assertEquals(0, index.evict(base.plusDays(1)));
+
+        assertFalse(index.overlaps(item.getId(), base, base.plusDays(2)));
+        assertTrue(index.overlaps(item.getId(), base, base.plusDays(3)));
+        verify(bookingRepository, times(1)).findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any());
+    }
+
+    private Booking booking(long id, LocalDateTime start, LocalDateTime end) {
+        return Booking.builder()
+                .id(id)
+                .item(item)
+                .start(start)
+                .end(end)
+                .status(Status.WAITING)
+                .build();
+    }
+}
@@ -0,0 +1,76 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.outbox.BookingEvent;
+import ru.practicum.shareit.booking.outbox.BookingEventType;
+import ru.practicum.shareit.booking.outbox.InMemoryBookingEventSink;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+@DirtiesContext
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:scheduling",
+        "shareit.outbox.poll-interval=PT0.05S",
+        "shareit.expiry.interval=PT0.05S",
+        "shareit.expiry.pause=PT30S"})
+class BookingJobsSchedulingTest {
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private InMemoryBookingEventSink sink;
+
+    @Test
+    void shouldDispatchEventsWhileExpiryJobPausesBetweenChunks() throws InterruptedException {
+        User owner = userRepository.save(User.builder().name("owner").email("owner@mail.com").build());
+        User booker = userRepository.save(User.builder().name("booker").email("booker@mail.com").build());
+        Item item = itemRepository.save(Item.builder()
+                .name("Drill")
+                .description("Cordless drill")
+                .available(true)
+                .owner(owner)
+                .build());
+        LocalDateTime start = LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.SECONDS);
+        Booking stale = bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(start)
+                .end(start.plusDays(1))
+                .status(Status.WAITING)
+                .build());
+
+        // the expiry job expires the one-booking chunk and then sleeps for 30 seconds, so its EXPIRED event
+        // is only published in time if the dispatcher polls on another scheduler thread
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (expiredEventsOf(stale).isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertThat(expiredEventsOf(stale).size()).isEqualTo(1);
+        assertThat(bookingRepository.findById(stale.getId()).orElseThrow().getStatus()).isEqualTo(Status.EXPIRED);
+    }
+
+    private List<BookingEvent> expiredEventsOf(Booking booking) {
+        return sink.getEvents().stream()
+                .filter(event -> event.getBookingId() == booking.getId()
+                        && event.getType() == BookingEventType.EXPIRED)
+                .collect(Collectors.toList());
+    }
+}
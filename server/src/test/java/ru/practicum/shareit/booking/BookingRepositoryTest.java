@@ -1,13 +1,20 @@
 package ru.practicum.shareit.booking;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.ItemBookingsDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.item.model.Item;
@@ -18,11 +25,12 @@ import ru.practicum.shareit.user.UserRepository;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @AutoConfigureTestDatabase
 class BookingRepositoryTest {
     @Autowired
@@ -31,6 +39,8 @@ class BookingRepositoryTest {
     private UserRepository userRepository;
     @Autowired
     private BookingRepository bookingRepository;
+    @Autowired
+    private TestEntityManager entityManager;
 
     private User dbUser1;
     private User dbUser2;
@@ -119,7 +129,7 @@ class BookingRepositoryTest {
                 .build();
         rejectedDbBooking = bookingRepository.save(rejected);
 
-        pageable = PageRequest.of(1 / 20, 20, Sort.by("start").descending());
+        pageable = PageRequest.of(1 / 20, 20, Sort.by("start", "id").descending());
     }
 
     @Test
@@ -136,14 +146,20 @@ class BookingRepositoryTest {
 
     @Test
     void shouldReturnListOf4BookingsWhenFindingByBookerId2() {
-        assertEquals(List.of(nextDbBooking, waitingDbBooking, rejectedDbBooking, lastDbBooking),
+        assertEquals(List.of(rejectedDbBooking, waitingDbBooking, nextDbBooking, lastDbBooking),
                 bookingRepository.findAllByBookerId(dbUser2.getId(), pageable));
         assertEquals(4, bookingRepository.findAllByBookerId(dbUser2.getId(), pageable).size());
     }
 
+    @Test
+    void shouldCopyItemOwnerToBookingWhenSaving() {
+        assertEquals(dbUser2.getId(), dbBooking.getOwnerId());
+        assertEquals(dbUser1.getId(), nextDbBooking.getOwnerId());
+    }
+
     @Test
     void shouldReturnListOf4BookingsWhenFindingByOwnerId1() {
-        assertEquals(List.of(nextDbBooking, waitingDbBooking, rejectedDbBooking, lastDbBooking),
+        assertEquals(List.of(rejectedDbBooking, waitingDbBooking, nextDbBooking, lastDbBooking),
                 bookingRepository.findAllByOwnerId(dbUser1.getId(), pageable));
         assertEquals(4, bookingRepository.findAllByOwnerId(dbUser1.getId(), pageable).size());
     }
@@ -220,7 +236,7 @@ class BookingRepositoryTest {
 
     @Test
     void shouldReturnListOfFutureBookingsWhenFindingByBooker2() {
-        assertEquals(List.of(nextDbBooking, waitingDbBooking, rejectedDbBooking),
+        assertEquals(List.of(rejectedDbBooking, waitingDbBooking, nextDbBooking),
                 bookingRepository.findAllByBookerIdAndStateFuture(dbUser2.getId(), pageable));
         assertEquals(3,
                 bookingRepository.findAllByBookerIdAndStateFuture(dbUser2.getId(), pageable).size());
@@ -236,7 +252,7 @@ class BookingRepositoryTest {
 
     @Test
     void shouldReturnListOfFutureBookingsWhenFindingByOwner1() {
-        assertEquals(List.of(nextDbBooking, waitingDbBooking, rejectedDbBooking),
+        assertEquals(List.of(rejectedDbBooking, waitingDbBooking, nextDbBooking),
                 bookingRepository.findAllByOwnerIdAndStateFuture(dbUser1.getId(), pageable));
         assertEquals(3,
                 bookingRepository.findAllByOwnerIdAndStateFuture(dbUser1.getId(), pageable).size());
@@ -284,18 +300,42 @@ class BookingRepositoryTest {
 
     @Test
     void shouldReturnCorrectBookingWhenFindingByItemStatusAndStartTimeBefore() {
-        assertEquals(lastDbBooking, bookingRepository
-                .findFirstByItemIdAndStartBeforeAndStatusOrderByEndDesc(dbItem1.getId(),
-                        LocalDateTime.now(),
-                        Status.APPROVED).orElseThrow());
+        assertEquals(List.of(BookingMapper.toShortDto(lastDbBooking)), bookingRepository
+                .findLastByItemId(dbItem1.getId(), LocalDateTime.now(), Status.APPROVED, PageRequest.of(0, 1)));
     }
 
     @Test
     void shouldReturnCorrectBookingWhenFindingByItemStatusAndStartTimeAfter() {
-        assertEquals(nextDbBooking, bookingRepository
-                .findFirstByItemIdAndStartAfterAndStatusOrderByStartAsc(dbItem1.getId(),
-                        LocalDateTime.now(),
-                        Status.APPROVED).orElseThrow());
+        assertEquals(List.of(BookingMapper.toShortDto(nextDbBooking)), bookingRepository
+                .findNextByItemId(dbItem1.getId(), LocalDateTime.now(), Status.APPROVED, PageRequest.of(0, 1)));
+    }
+
+    @Test
+    void shouldReturnLastAndNextApprovedBookingsOfEveryItemInOneQuery() {
+        LocalDateTime now = LocalDateTime.now();
+        bookingRepository.save(Booking.builder()
+                .item(dbItem1)
+                .booker(dbUser2)
+                .start(now.minusDays(10).truncatedTo(ChronoUnit.SECONDS))
+                .end(now.minusDays(9).truncatedTo(ChronoUnit.SECONDS))
+                .status(Status.APPROVED)
+                .build());
+        bookingRepository.save(Booking.builder()
+                .item(dbItem1)
+                .booker(dbUser2)
+                .start(now.plusDays(5).truncatedTo(ChronoUnit.SECONDS))
+                .end(now.plusDays(6).truncatedTo(ChronoUnit.SECONDS))
+                .status(Status.APPROVED)
+                .build());
+
+        List<ItemBookingsDto> bookings = bookingRepository
+                .findLastAndNextApproved(List.of(dbItem1.getId(), dbItem2.getId(), 999L), now);
+
+        assertEquals(2, bookings.size());
+        assertTrue(bookings.contains(new ItemBookingsDto(dbItem1.getId(),
+                BookingMapper.toShortDto(lastDbBooking), BookingMapper.toShortDto(nextDbBooking))));
+        assertTrue(bookings.contains(new ItemBookingsDto(dbItem2.getId(), BookingMapper.toShortDto(dbBooking), null)));
+        assertEquals(List.of(), bookingRepository.findLastAndNextApproved(List.of(), now));
     }
 
     @Test
@@ -311,4 +351,121 @@ class BookingRepositoryTest {
                 dbItem2.getId(),
                 LocalDateTime.now()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnPagesOrderedByStartAndIdWhenSeekingByBooker2() {
+        Pageable firstPage = PageRequest.of(0, 2);
+        List<Booking> first = bookingRepository.findPageByBookerId(dbUser2.getId(),
+                BookingCursor.FIRST.getStart(), BookingCursor.FIRST.getId(), firstPage);
+        assertEquals(List.of(rejectedDbBooking, waitingDbBooking), first);
+
+        Booking last = first.get(first.size() - 1);
+        assertEquals(List.of(nextDbBooking, lastDbBooking),
+                bookingRepository.findPageByBookerId(dbUser2.getId(), last.getStart(), last.getId(), firstPage));
+    }
+
+    @Test
+    void shouldReturnPageAfterCursorWhenSeekingByOwner1AndState() {
+        Pageable page = PageRequest.of(0, 10);
+        assertEquals(List.of(rejectedDbBooking, waitingDbBooking, nextDbBooking),
+                bookingRepository.findPageByOwnerIdAndStateFuture(dbUser1.getId(),
+                        BookingCursor.FIRST.getStart(), BookingCursor.FIRST.getId(), page));
+        assertEquals(List.of(nextDbBooking),
+                bookingRepository.findPageByOwnerIdAndStateFuture(dbUser1.getId(),
+                        waitingDbBooking.getStart(), waitingDbBooking.getId(), page));
+        assertEquals(List.of(waitingDbBooking),
+                bookingRepository.findPageByOwnerIdAndStatus(dbUser1.getId(),
+                        BookingCursor.FIRST.getStart(), BookingCursor.FIRST.getId(), Status.WAITING, page));
+    }
+
+    @Test
+    void shouldLoadAndMapBookerPageInOneStatement() {
+        assertEquals(1, countStatementsWhileMapping(() ->
+                bookingRepository.findAllByBookerId(dbUser2.getId(), pageable)));
+        assertEquals(1, countStatementsWhileMapping(() ->
+                bookingRepository.findAllByBookerIdAndStateFuture(dbUser2.getId(), pageable)));
+        assertEquals(1, countStatementsWhileMapping(() ->
+                bookingRepository.findPageByBookerIdAndStatus(dbUser2.getId(), BookingCursor.FIRST.getStart(),
+                        BookingCursor.FIRST.getId(), Status.WAITING, PageRequest.of(0, 20))));
+    }
+
+    @Test
+    void shouldLoadAndMapOwnerPageInOneStatement() {
+        assertEquals(1, countStatementsWhileMapping(() ->
+                bookingRepository.findAllByOwnerId(dbUser1.getId(), pageable)));
+        assertEquals(1, countStatementsWhileMapping(() ->
+                bookingRepository.findAllByOwnerIdAndStatus(dbUser1.getId(), Status.REJECTED, pageable)));
+        assertEquals(1, countStatementsWhileMapping(() ->
+                bookingRepository.findPageByOwnerId(dbUser1.getId(), BookingCursor.FIRST.getStart(),
+                        BookingCursor.FIRST.getId(), PageRequest.of(0, 20))));
+    }
+
+    @Test
+    void shouldProjectBookingDtoForBookerAndOwnerWithoutLoadingEntities() {
+        BookingDto expected = BookingMapper.toDto(dbBooking);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertEquals(expected, bookingRepository.findDtoByIdAndUserId(dbBooking.getId(), dbUser2.getId())
+                .orElseThrow());
+        assertEquals(expected, bookingRepository.findDtoByIdAndUserId(dbBooking.getId(), dbUser1.getId())
+                .orElseThrow());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void shouldReturnEmptyWhenProjectingBookingDtoForStranger() {
+        assertTrue(bookingRepository.findDtoByIdAndUserId(dbBooking.getId(), 999L).isEmpty());
+    }
+
+    @Test
+    void shouldCountBookingStatesForBookerAndOwnerInOneStatement() {
+        entityManager.flush();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertEquals(new BookingCountsDto(4, 0, 1, 3, 1, 1), bookingRepository.countStatesByBookerId(dbUser2.getId()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(new BookingCountsDto(4, 0, 1, 3, 1, 1), bookingRepository.countStatesByOwnerId(dbUser1.getId()));
+        assertEquals(new BookingCountsDto(1, 1, 0, 0, 0, 0), bookingRepository.countStatesByBookerId(dbUser1.getId()));
+        assertEquals(new BookingCountsDto(1, 1, 0, 0, 0, 0), bookingRepository.countStatesByOwnerId(dbUser2.getId()));
+    }
+
+    @Test
+    void shouldReturnZeroCountsForUnknownUser() {
+        assertEquals(new BookingCountsDto(), bookingRepository.countStatesByBookerId(999L));
+        assertEquals(new BookingCountsDto(), bookingRepository.countStatesByOwnerId(999L));
+    }
+
+    @Test
+    void shouldThrowOptimisticLockingFailureWhenSavingStaleBooking() {
+        Booking stale = Booking.builder()
+                .id(dbBooking.getId())
+                .item(dbItem2)
+                .booker(dbUser1)
+                .start(dbBooking.getStart())
+                .end(dbBooking.getEnd())
+                .status(Status.REJECTED)
+                .version(dbBooking.getVersion())
+                .build();
+        dbBooking.setStatus(Status.WAITING);
+        entityManager.flush();
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> bookingRepository.save(stale));
+    }
+
+    private long countStatementsWhileMapping(Supplier<List<Booking>> query) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertFalse(BookingMapper.toDto(query.get()).isEmpty());
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -1,24 +1,46 @@
 package ru.practicum.shareit.booking;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingCreationDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.outbox.BookingEvent;
+import ru.practicum.shareit.booking.outbox.BookingEventDispatcher;
+import ru.practicum.shareit.booking.outbox.BookingEventRepository;
+import ru.practicum.shareit.booking.outbox.BookingEventType;
+import ru.practicum.shareit.booking.outbox.InMemoryBookingEventSink;
+import ru.practicum.shareit.booking.service.BookingArchiveJob;
+import ru.practicum.shareit.booking.service.BookingExpiryJob;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemCatalogDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserService;
 
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 
 @Transactional
@@ -31,6 +53,22 @@ class BookingServiceIntegrationTest {
     private UserService userService;
     @Autowired
     private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private BookingEventRepository eventRepository;
+    @Autowired
+    private BookingEventDispatcher dispatcher;
+    @Autowired
+    private InMemoryBookingEventSink sink;
+    @Autowired
+    private BookingExpiryJob expiryJob;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private BookingArchiveJob archiveJob;
+    @Autowired
+    private EntityManager entityManager;
 
     private UserDto userDto1;
     private UserDto userDto2;
@@ -64,20 +102,21 @@ class BookingServiceIntegrationTest {
         itemDto1.setComments(new ArrayList<>());
         itemDto2.setComments(new ArrayList<>());
 
-        LocalDateTime currentStart = LocalDateTime.now().minusDays(1);
-        LocalDateTime currentEnd = LocalDateTime.now().plusDays(2);
+        LocalDateTime currentStart = LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime currentEnd = LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.SECONDS);
         BookingCreationDto currentBookingCreationDto = new BookingCreationDto(currentStart, currentEnd, itemDto2.getId());
 
-        LocalDateTime pastStart = LocalDateTime.now().minusDays(3);
-        LocalDateTime pastEnd = LocalDateTime.now().minusDays(1);
+        LocalDateTime pastStart = LocalDateTime.now().minusDays(5).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime pastEnd = LocalDateTime.now().minusDays(3).truncatedTo(ChronoUnit.SECONDS);
         BookingCreationDto pastBookingCreationDto = new BookingCreationDto(pastStart, pastEnd, itemDto2.getId());
 
-        LocalDateTime futureStart = LocalDateTime.now().plusDays(1);
-        LocalDateTime futureEnd = LocalDateTime.now().plusDays(3);
+        LocalDateTime futureStart = LocalDateTime.now().plusDays(3).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime futureEnd = LocalDateTime.now().plusDays(5).truncatedTo(ChronoUnit.SECONDS);
         BookingCreationDto futureBookingCreationDto = new BookingCreationDto(futureStart, futureEnd, itemDto2.getId());
 
         BookingCreationDto waitingBookingCreationDto = new BookingCreationDto(futureStart, futureEnd, itemDto1.getId());
-        BookingCreationDto rejectedBookingCreationDto = new BookingCreationDto(futureStart, futureEnd, itemDto1.getId());
+        BookingCreationDto rejectedBookingCreationDto = new BookingCreationDto(futureStart.minusDays(2),
+                futureStart.minusDays(1), itemDto1.getId());
 
         currentBookingDto = bookingService.create(userDto1.getId(), currentBookingCreationDto);
         pastBookingDto = bookingService.create(userDto1.getId(), pastBookingCreationDto);
@@ -89,8 +128,8 @@ class BookingServiceIntegrationTest {
 
     @Test
     void shouldReturnBookingsListContainingCertainBookingWhenGettingByBookerId1() {
-        LocalDateTime start = LocalDateTime.now().minusDays(1);
-        LocalDateTime end = LocalDateTime.now().plusDays(2);
+        LocalDateTime start = LocalDateTime.now().plusDays(6);
+        LocalDateTime end = LocalDateTime.now().plusDays(7);
         BookingCreationDto bookingInputDto = new BookingCreationDto(start, end, itemDto2.getId());
 
         BookingDto bookingDto = bookingService.create(userDto1.getId(), bookingInputDto);
@@ -99,6 +138,243 @@ class BookingServiceIntegrationTest {
                 .contains(bookingDto);
     }
 
+    @Test
+    void shouldExportWholeHistoryNewestFirst() {
+        List<BookingDto> booked = new ArrayList<>();
+        List<BookingDto> owned = new ArrayList<>();
+
+        bookingService.exportByBookerId(userDto1.getId(), booked::add);
+        bookingService.exportByOwnerId(userDto2.getId(), owned::add);
+
+        assertThat(booked).isEqualTo(List.of(futureBookingDto, currentBookingDto, pastBookingDto));
+        assertThat(owned).isEqualTo(booked);
+    }
+
+    @Test
+    void shouldThrowValidationExceptionWhenCreatingBookingOverlappingWaitingOne() {
+        BookingCreationDto overlapping = new BookingCreationDto(futureBookingDto.getStart().plusHours(1),
+                futureBookingDto.getEnd().plusDays(1), itemDto2.getId());
+
+        assertThrows(ValidationException.class, () -> bookingService.create(userDto1.getId(), overlapping));
+    }
+
+    @Test
+    void shouldCreateValidBatchEntriesAndReportFailedOnes() {
+        LocalDateTime start = futureBookingDto.getEnd().plusDays(1);
+        List<BookingCreationDto> batch = List.of(
+                new BookingCreationDto(start, start.plusDays(1), itemDto2.getId()),
+                new BookingCreationDto(start.plusHours(1), start.plusDays(2), itemDto2.getId()),
+                new BookingCreationDto(start, start.plusDays(1), 999L),
+                new BookingCreationDto(start.plusDays(2), start.plusDays(3), itemDto2.getId()));
+
+        List<BookingBatchResultDto> results = bookingService.createBatch(userDto1.getId(), batch);
+
+        assertThat(results.get(0).getBooking()).hasFieldOrPropertyWithValue("status", Status.WAITING);
+        assertThat(results.get(1).getError()).isEqualTo("Item is already booked for these dates.");
+        assertThat(results.get(2).getError()).isEqualTo("Item with this ID is not found");
+        assertThat(results.get(3).getBooking()).isNotNull();
+        assertThat(bookingService.getByBookerId(userDto1.getId(), "FUTURE", 0, 20)).asList()
+                .containsExactly(results.get(3).getBooking(), results.get(0).getBooking(), futureBookingDto);
+    }
+
+    @Test
+    void shouldReportIncompleteBatchEntriesAndInsertAcceptedOnesTogether() {
+        LocalDateTime start = futureBookingDto.getEnd().plusDays(1);
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            itemIds.add(itemService.registerItem(userDto2.getId(), ItemDto.builder()
+                    .name("Batch item " + i).description("Batch").available(true).build()).getId());
+        }
+        List<BookingCreationDto> batch = new ArrayList<>();
+        itemIds.forEach(itemId -> batch.add(new BookingCreationDto(start, start.plusDays(1), itemId)));
+        batch.add(new BookingCreationDto(start, start.plusDays(1), null));
+        batch.add(new BookingCreationDto(start.plusDays(1), start, itemIds.get(0)));
+        batch.add(new BookingCreationDto(start.plusHours(1), start.plusDays(2), itemIds.get(1)));
+        entityManager.flush();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        long inserts = statistics.getEntityInsertCount();
+
+        List<BookingBatchResultDto> results = bookingService.createBatch(userDto1.getId(), batch);
+        long insertedBeforeFlush = statistics.getEntityInsertCount() - inserts;
+        entityManager.flush();
+        long inserted = statistics.getEntityInsertCount() - inserts;
+        statistics.setStatisticsEnabled(false);
+
+        assertThat(results.stream().filter(result -> result.getBooking() != null).count()).isEqualTo(3L);
+        assertThat(results.get(3).getError()).isEqualTo("Booking needs an item ID, start and end.");
+        assertThat(results.get(4).getError()).isEqualTo("Start time is not before end time.");
+        assertThat(results.get(5).getError()).isEqualTo("Item is already booked for these dates.");
+        assertThat(insertedBeforeFlush).isEqualTo(0L);
+        assertThat(inserted).isEqualTo(6L);
+    }
+
+    @Test
+    void shouldApproveOnlyOwnedWaitingBookingsWhenApprovingByIds() {
+        BookingApprovalDto dto = new BookingApprovalDto(
+                List.of(currentBookingDto.getId(), futureBookingDto.getId(), waitingBookingDto.getId()), null);
+
+        assertThat(bookingService.approveAll(userDto2.getId(), dto, true)).asList()
+                .containsExactly(currentBookingDto.getId(), futureBookingDto.getId());
+        assertThat(bookingService.approveAll(userDto2.getId(), dto, false)).asList().isEmpty();
+
+        assertThat(bookingService.getBookingById(userDto2.getId(), futureBookingDto.getId()))
+                .hasFieldOrPropertyWithValue("status", Status.APPROVED);
+        assertThat(bookingService.getBookingById(userDto1.getId(), waitingBookingDto.getId()))
+                .hasFieldOrPropertyWithValue("status", Status.WAITING);
+    }
+
+    @Test
+    void shouldRejectApprovalOverlappingApprovedBookingWithConflict() {
+        BookingCreationDto overlapping = new BookingCreationDto(futureBookingDto.getStart().plusHours(1),
+                futureBookingDto.getEnd().plusHours(1), itemDto2.getId());
+        long createdElsewhere = bookingRepository.save(BookingMapper.fromDto(overlapping,
+                userService.getUserById(userDto1.getId()), itemService.getItemById(itemDto2.getId()))).getId();
+
+        bookingService.approve(userDto2.getId(), futureBookingDto.getId(), true);
+
+        assertThrows(ConflictException.class, () -> bookingService.approve(userDto2.getId(), createdElsewhere, true));
+        assertThat(bookingService.approve(userDto2.getId(), createdElsewhere, false))
+                .hasFieldOrPropertyWithValue("status", Status.REJECTED);
+    }
+
+    @Test
+    void shouldSkipBookingsOverlappingApprovedOrEarlierOnesWhenApprovingAll() {
+        BookingCreationDto overlapping = new BookingCreationDto(futureBookingDto.getStart().plusHours(1),
+                futureBookingDto.getEnd().plusHours(1), itemDto2.getId());
+        long createdElsewhere = bookingRepository.save(BookingMapper.fromDto(overlapping,
+                userService.getUserById(userDto1.getId()), itemService.getItemById(itemDto2.getId()))).getId();
+
+        assertThat(bookingService.approveAll(userDto2.getId(), new BookingApprovalDto(null, itemDto2.getId()), true))
+                .asList().containsExactly(currentBookingDto.getId(), pastBookingDto.getId(), futureBookingDto.getId());
+        assertThat(bookingService.approveAll(userDto2.getId(), new BookingApprovalDto(List.of(createdElsewhere), null),
+                true)).asList().isEmpty();
+
+        assertThat(bookingService.getBookingById(userDto2.getId(), createdElsewhere))
+                .hasFieldOrPropertyWithValue("status", Status.WAITING);
+        assertThat(bookingService.getBookingById(userDto2.getId(), futureBookingDto.getId()))
+                .hasFieldOrPropertyWithValue("status", Status.APPROVED);
+    }
+
+    @Test
+    void shouldWriteLifecycleEventsToOutboxAndDispatchThemInOrder() {
+        sink.clear();
+        bookingService.approve(userDto2.getId(), futureBookingDto.getId(), true);
+        bookingService.approveAll(userDto2.getId(), new BookingApprovalDto(null, itemDto2.getId()), false);
+
+        dispatcher.poll();
+
+        assertThat(eventRepository.count()).isEqualTo(0L);
+        assertThat(sink.getEvents().stream()
+                .filter(event -> event.getBookingId() == futureBookingDto.getId())
+                .map(BookingEvent::getType)
+                .collect(Collectors.toList())).asList()
+                .containsExactly(BookingEventType.CREATED, BookingEventType.APPROVED);
+        assertThat(sink.getEvents().stream()
+                .filter(event -> event.getBookingId() == pastBookingDto.getId())
+                .map(BookingEvent::getType)
+                .collect(Collectors.toList())).asList()
+                .containsExactly(BookingEventType.CREATED, BookingEventType.REJECTED);
+    }
+
+    @Test
+    void shouldNotClaimEventsClaimedByAnotherDispatcherOrFollowingThemUntilReleased() {
+        bookingService.approve(userDto2.getId(), futureBookingDto.getId(), true);
+        LocalDateTime now = LocalDateTime.now();
+        long events = eventRepository.count();
+
+        List<BookingEvent> first = eventRepository.claim("first", now, now.plusMinutes(1), 1);
+        List<BookingEvent> second = eventRepository.claim("second", now, now.plusMinutes(1), 100);
+
+        assertThat(first.size()).isEqualTo(1);
+        assertThat(second.stream()
+                .filter(event -> event.getBookingId() == first.get(0).getBookingId()
+                        || event.getId() == first.get(0).getId())
+                .count()).isEqualTo(0L);
+        assertThat(second.size()).isLessThan((int) events);
+
+        eventRepository.release("first");
+        eventRepository.release("second");
+
+        assertThat(eventRepository.claim("third", now, now.plusMinutes(1), 100).size()).isEqualTo((int) events);
+        assertThat(eventRepository.claim("fourth", now.plusMinutes(2), now.plusMinutes(3), 100).size())
+                .isEqualTo((int) events);
+    }
+
+    @Test
+    void shouldPublishEventsOfBookingInVersionOrderWhenIdsAreNot() {
+        dispatcher.poll();
+        sink.clear();
+        BookingEvent approved = eventRepository.save(event(BookingEventType.APPROVED, 1));
+        BookingEvent created = eventRepository.save(event(BookingEventType.CREATED, 0));
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(eventRepository.claim("first", now, now.plusMinutes(1), 1).size()).isEqualTo(0);
+        dispatcher.poll();
+
+        assertThat(approved.getId()).isLessThan(created.getId());
+        assertThat(sink.getEvents().stream().map(BookingEvent::getType).collect(Collectors.toList())).asList()
+                .containsExactly(BookingEventType.CREATED, BookingEventType.APPROVED);
+    }
+
+    @Test
+    void shouldExpireStartedWaitingBookingsInChunksAndReportMetrics() {
+        double processedBefore = meterRegistry.counter("bookings.expiry.processed").count();
+        bookingService.approve(userDto2.getId(), pastBookingDto.getId(), true);
+
+        expiryJob.run();
+
+        assertThat(bookingService.getBookingById(userDto1.getId(), currentBookingDto.getId()))
+                .hasFieldOrPropertyWithValue("status", Status.EXPIRED);
+        assertThat(bookingService.getBookingById(userDto1.getId(), pastBookingDto.getId()))
+                .hasFieldOrPropertyWithValue("status", Status.APPROVED);
+        assertThat(bookingService.getBookingById(userDto1.getId(), futureBookingDto.getId()))
+                .hasFieldOrPropertyWithValue("status", Status.WAITING);
+        assertThat(meterRegistry.counter("bookings.expiry.processed").count() - processedBefore).isEqualTo(1.0);
+        assertThat(meterRegistry.get("bookings.expiry.lag").gauge().value()).isEqualTo(0.0);
+        assertThat(expiryJob.expireChunk(LocalDateTime.now())).isEqualTo(0);
+    }
+
+    @Test
+    void shouldMoveEndedBookingsToArchiveAndServeThemAsHistory() {
+        assertThat(archiveJob.createPartitions(LocalDate.now())).isEqualTo(0);
+
+        assertThat(archiveJob.archive(LocalDate.now().plusYears(2))).isGreaterThanOrEqualTo(5L);
+
+        assertThat(bookingService.getByBookerId(userDto1.getId(), "ALL", 0, 20)).asList().isEmpty();
+        assertThat(bookingService.getArchivedByBookerId(userDto1.getId(), 0, 20)).asList()
+                .containsExactly(futureBookingDto, currentBookingDto, pastBookingDto);
+        assertThat(bookingService.getArchivedByOwnerId(userDto1.getId(), 0, 20)).asList()
+                .containsExactly(waitingBookingDto, rejectedBookingDto);
+        assertThat(bookingService.getArchivedByOwnerId(userDto2.getId(), 1, 1)).asList()
+                .containsExactly(currentBookingDto);
+        assertThat(itemService.addComment(userDto1.getId(), itemDto2.getId(),
+                CommentDto.builder().text("Archived").build()).getText()).isEqualTo("Archived");
+    }
+
+    @Test
+    void shouldKeepLastBookingAndBookingCountOfArchivedBookings() {
+        bookingService.approve(userDto2.getId(), pastBookingDto.getId(), true);
+
+        archiveJob.archive(LocalDate.now().plusYears(2));
+
+        assertThat(itemService.getById(userDto2.getId(), itemDto2.getId()).getLastBooking())
+                .hasFieldOrPropertyWithValue("id", pastBookingDto.getId());
+        ItemCatalogDto catalogItem = itemService.getCatalogPage(userDto2.getId(), null, 10).getItems().get(0);
+        assertThat(catalogItem.getBookingCount()).isEqualTo(3L);
+        assertThat(catalogItem.getLastBooking()).hasFieldOrPropertyWithValue("id", pastBookingDto.getId());
+    }
+
+    @Test
+    void shouldRejectAllWaitingBookingsOfItem() {
+        BookingApprovalDto dto = new BookingApprovalDto(null, itemDto2.getId());
+
+        assertThat(bookingService.approveAll(userDto2.getId(), dto, false)).asList()
+                .containsExactly(currentBookingDto.getId(), pastBookingDto.getId(), futureBookingDto.getId());
+        assertThat(bookingService.getByOwnerId(userDto2.getId(), "REJECTED", 0, 20)).asList().hasSize(3);
+        assertThat(bookingService.getByOwnerId(userDto2.getId(), "WAITING", 0, 20)).asList().isEmpty();
+    }
+
     @Test
     void shouldReturnBookingListsWithRequestedStatesWhenGettingByDifferentBookerIds() {
         assertThat(bookingService.getByBookerId(userDto1.getId(), "ALL", 0, 20))
@@ -175,4 +451,18 @@ class BookingServiceIntegrationTest {
         assertThat(bookingService.approve(userDto2.getId(), futureBookingDto.getId(), false))
                 .hasFieldOrPropertyWithValue("status", Status.REJECTED);
     }
+
+    private BookingEvent event(BookingEventType type, long bookingVersion) {
+        return BookingEvent.builder()
+                .type(type)
+                .bookingId(futureBookingDto.getId())
+                .itemId(itemDto2.getId())
+                .bookerId(userDto1.getId())
+                .ownerId(userDto2.getId())
+                .start(futureBookingDto.getStart())
+                .end(futureBookingDto.getEnd())
+                .created(LocalDateTime.now())
+                .bookingVersion(bookingVersion)
+                .build();
+    }
 }
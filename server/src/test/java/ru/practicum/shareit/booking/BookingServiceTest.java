@@ -7,27 +7,41 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
 import ru.practicum.shareit.booking.dto.BookingCreationDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPage;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.outbox.BookingEventType;
+import ru.practicum.shareit.booking.outbox.BookingOutbox;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.booking.service.ItemAvailabilityCalendar;
+import ru.practicum.shareit.booking.service.ItemLocks;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,9 +49,19 @@ class BookingServiceTest {
     @Mock
     private BookingRepository bookingRepository;
     @Mock
+    private BookingArchiveRepository archiveRepository;
+    @Mock
     private UserServiceImpl userService;
     @Mock
     private ItemServiceImpl itemService;
+    @Mock
+    private BookingIntervalIndex intervalIndex;
+    @Mock
+    private ItemAvailabilityCalendar calendar;
+    @Mock
+    private BookingOutbox outbox;
+    @Mock
+    private ItemLocks itemLocks;
     @InjectMocks
     private BookingServiceImpl bookingService;
 
@@ -90,7 +114,7 @@ class BookingServiceTest {
                 .itemId(booking1.getItem().getId())
                 .build();
 
-        pageable = PageRequest.of(1 / 20, 20, Sort.by("start").descending());
+        pageable = PageRequest.of(1 / 20, 20, Sort.by("start", "id").descending());
     }
 
     @Test
@@ -211,7 +235,8 @@ class BookingServiceTest {
 
     @Test
     void shouldReturnCorrectBookingWhenGettingByBookingId() {
-        when(bookingRepository.findById(booking1.getId())).thenReturn(Optional.of(booking1));
+        when(bookingRepository.findDtoByIdAndUserId(booking1.getId(), user1.getId()))
+                .thenReturn(Optional.of(bookingDto));
         when(userService.getUserById(user1.getId())).thenReturn(user1);
 
         assertThat(bookingService.getBookingById(user1.getId(), booking1.getId())).isEqualTo(bookingDto);
@@ -222,27 +247,129 @@ class BookingServiceTest {
         when(userService.getUserById(user2.getId())).thenReturn(user2);
         when(itemService.getItemById(item1.getId())).thenReturn(item1);
         when(bookingRepository.save(any())).thenReturn(booking1);
+        when(intervalIndex.tryReserve(booking1)).thenReturn(true);
 
         assertThat(bookingService.create(user2.getId(), bookingCreationDto)).isEqualTo(bookingDto);
+        verify(outbox).record(booking1, BookingEventType.CREATED);
+    }
+
+    @Test
+    void shouldThrowValidationExceptionWhenCreatingOverlappingBooking() {
+        when(userService.getUserById(user2.getId())).thenReturn(user2);
+        when(itemService.getItemById(item1.getId())).thenReturn(item1);
+        when(intervalIndex.overlaps(item1.getId(), bookingCreationDto.getStart(), bookingCreationDto.getEnd()))
+                .thenReturn(true);
+
+        assertThrows(ValidationException.class, () -> bookingService.create(user2.getId(), bookingCreationDto));
+        verify(bookingRepository, never()).save(any());
     }
 
     @Test
     void shouldReturnApprovedBooking() {
         when(bookingRepository.findById(booking1.getId())).thenReturn(Optional.of(booking1));
-        when(bookingRepository.save(Mockito.any())).thenReturn(booking1);
+        when(bookingRepository.saveAndFlush(Mockito.any())).thenReturn(booking1);
         when(userService.getUserById(user1.getId())).thenReturn(user1);
         bookingDto.setStatus(Status.APPROVED);
 
         assertThat(bookingService.approve(user1.getId(), booking1.getId(), true)).isEqualTo(bookingDto);
+        verify(calendar).occupy(booking1);
+        verify(outbox).record(booking1, BookingEventType.APPROVED);
+    }
+
+    @Test
+    void shouldThrowConflictExceptionWhenApprovingBookingOverlappingApprovedOne() {
+        when(bookingRepository.findById(booking1.getId())).thenReturn(Optional.of(booking1));
+        when(userService.getUserById(user1.getId())).thenReturn(user1);
+        when(bookingRepository.existsApprovedOverlap(item1.getId(), booking1.getStart(), booking1.getEnd(),
+                booking1.getId())).thenReturn(true);
+
+        assertThrows(ConflictException.class, () -> bookingService.approve(user1.getId(), booking1.getId(), true));
+        verify(bookingRepository, never()).saveAndFlush(any());
+        verify(calendar, never()).occupy(booking1);
+    }
+
+    @Test
+    void shouldTranslateExclusionViolationIntoConflictException() {
+        when(bookingRepository.findById(booking1.getId())).thenReturn(Optional.of(booking1));
+        when(userService.getUserById(user1.getId())).thenReturn(user1);
+        when(bookingRepository.saveAndFlush(booking1)).thenThrow(new DataIntegrityViolationException("overlap",
+                new SQLException("conflicting key value violates exclusion constraint", "23P01")));
+
+        assertThrows(ConflictException.class, () -> bookingService.approve(user1.getId(), booking1.getId(), true));
     }
 
     @Test
     void shouldReturnRejectedBooking() {
         when(bookingRepository.findById(booking1.getId())).thenReturn(Optional.of(booking1));
-        when(bookingRepository.save(Mockito.any())).thenReturn(booking1);
+        when(bookingRepository.saveAndFlush(Mockito.any())).thenReturn(booking1);
         when(userService.getUserById(user1.getId())).thenReturn(user1);
         bookingDto.setStatus(Status.REJECTED);
 
         assertThat(bookingService.approve(user1.getId(), booking1.getId(), false)).isEqualTo(bookingDto);
+        verify(intervalIndex).release(booking1);
+        verify(calendar, never()).occupy(booking1);
+    }
+
+    @Test
+    void shouldRejectWaitingBookingsOfItemInOneUpdateAndReleaseTheirDates() {
+        when(userService.getUserById(user1.getId())).thenReturn(user1);
+        when(bookingRepository.findWaitingByItemIdAndOwnerId(item1.getId(), user1.getId()))
+                .thenReturn(List.of(booking1));
+
+        assertThat(bookingService.approveAll(user1.getId(), new BookingApprovalDto(null, item1.getId()), false))
+                .asList().containsExactly(booking1.getId());
+        verify(bookingRepository).updateWaitingStatusByIdIn(List.of(booking1.getId()), Status.REJECTED);
+        verify(intervalIndex).release(booking1);
+    }
+
+    @Test
+    void shouldThrowValidationExceptionWhenBulkApprovingWithoutSelector() {
+        when(userService.getUserById(user1.getId())).thenReturn(user1);
+
+        assertThrows(ValidationException.class, () ->
+                bookingService.approveAll(user1.getId(), new BookingApprovalDto(List.of(), null), true));
+    }
+
+    @Test
+    void shouldReturnPageWithNextCursorWhenMoreBookingsFollow() {
+        Booking booking2 = Booking.builder()
+                .id(2L)
+                .start(booking1.getStart().minusDays(1))
+                .end(booking1.getEnd())
+                .item(item1)
+                .booker(user2)
+                .status(Status.WAITING)
+                .build();
+        when(userService.getUserById(user1.getId())).thenReturn(user1);
+        when(bookingRepository.findPageByOwnerId(user1.getId(), BookingCursor.FIRST.getStart(),
+                BookingCursor.FIRST.getId(), PageRequest.of(0, 2))).thenReturn(List.of(booking1, booking2));
+
+        BookingPage page = bookingService.getPageByOwnerId(user1.getId(), "ALL", "", 1);
+
+        assertThat(page.getBookings()).asList().containsExactly(bookingDto);
+        BookingCursor cursor = BookingCursor.decode(page.getNextCursor());
+        assertThat(cursor.getStart()).isEqualTo(booking1.getStart());
+        assertThat(cursor.getId()).isEqualTo(booking1.getId());
+    }
+
+    @Test
+    void shouldReturnPageWithoutCursorWhenLastPageReached() {
+        when(userService.getUserById(user1.getId())).thenReturn(user1);
+        when(bookingRepository.findPageByBookerIdAndStatus(user1.getId(), booking1.getStart(), 5L,
+                Status.WAITING, PageRequest.of(0, 21))).thenReturn(List.of(booking1));
+
+        BookingPage page = bookingService.getPageByBookerId(user1.getId(), "WAITING",
+                BookingCursor.encode(Booking.builder().id(5L).start(booking1.getStart()).build()), 20);
+
+        assertThat(page.getBookings()).asList().containsExactly(bookingDto);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void shouldThrowValidationExceptionWhenCursorIsMalformed() {
+        when(userService.getUserById(user1.getId())).thenReturn(user1);
+
+        assertThrows(ValidationException.class,
+                () -> bookingService.getPageByBookerId(user1.getId(), "ALL", "not-a-cursor", 20));
     }
 }
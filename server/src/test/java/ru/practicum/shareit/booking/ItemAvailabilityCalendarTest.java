@@ -0,0 +1,199 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.service.ItemAvailabilityCalendar;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemAvailabilityCalendarTest {
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private ItemAvailabilityCalendar calendar;
+    private Item item;
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        calendar = new ItemAvailabilityCalendar(bookingRepository, new SimpleMeterRegistry(), Duration.ofMinutes(10), 2,
+                Duration.ofDays(7));
+        item = Item.builder().id(1L).name("item").build();
+        base = LocalDateTime.of(2030, 1, 1, 0, 0);
+    }
+
+    @Test
+    void shouldSplitRangeIntoFreeAndBusySlotsAndLoadItemOnlyOnce() {
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any()))
+                .thenReturn(List.of(booking(1L, base.plusHours(10), base.plusHours(12)),
+                        booking(2L, base.plusHours(12), base.plusHours(14).plusMinutes(30))));
+
+        ItemAvailabilityDto availability = calendar.getAvailability(item.getId(), base, base.plusDays(1));
+
+        assertEquals(List.of(slot(0, 10), slot(15, 24)), availability.getFree());
+        assertEquals(List.of(slot(10, 15)), availability.getBusy());
+        calendar.getAvailability(item.getId(), base, base.plusDays(1));
+        verify(bookingRepository, times(1)).findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any());
+    }
+
+    @Test
+    void shouldAnswerYearRangeAcrossChunks() {
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any()))
+                .thenReturn(List.of(booking(1L, base.plusDays(300), base.plusDays(400))));
+
+        ItemAvailabilityDto availability = calendar.getAvailability(item.getId(), base, base.plusYears(2));
+
+        assertEquals(List.of(new TimeSlotDto(base.plusDays(300), base.plusDays(400))), availability.getBusy());
+        assertEquals(List.of(new TimeSlotDto(base, base.plusDays(300)),
+                new TimeSlotDto(base.plusDays(400), base.plusYears(2))), availability.getFree());
+    }
+
+    @Test
+    void shouldOccupyApprovedBookingAndKeepSharedHourBusyAfterRelease() {
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any())).thenReturn(List.of());
+        Booking morning = booking(1L, base.plusHours(9), base.plusHours(10).plusMinutes(30));
+        Booking noon = booking(2L, base.plusHours(10).plusMinutes(30), base.plusHours(12));
+        calendar.getAvailability(item.getId(), base, base.plusDays(1));
+
+        calendar.occupy(morning);
+        calendar.occupy(noon);
+        assertEquals(List.of(slot(9, 12)), calendar.getAvailability(item.getId(), base, base.plusDays(1)).getBusy());
+
+        calendar.release(morning);
+        assertEquals(List.of(slot(10, 12)), calendar.getAvailability(item.getId(), base, base.plusDays(1)).getBusy());
+
+        calendar.release(noon);
+        calendar.release(noon);
+        assertEquals(List.of(slot(0, 24)), calendar.getAvailability(item.getId(), base, base.plusDays(1)).getFree());
+    }
+
+    @Test
+    void shouldApplyApprovalCommittedWhileItemIsLoading() throws InterruptedException {
+        Booking approved = booking(1L, base.plusHours(9), base.plusHours(11));
+        Thread approval = new Thread(() -> calendar.occupy(approved));
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any())).thenAnswer(invocation -> {
+            approval.start();
+            Thread.sleep(100);
+            return List.of();
+        });
+
+        calendar.getAvailability(item.getId(), base, base.plusDays(1));
+        approval.join();
+
+        assertEquals(List.of(slot(9, 11)), calendar.getAvailability(item.getId(), base, base.plusDays(1)).getBusy());
+    }
+
+    @Test
+    void shouldRoundPartialHoursOfRequestedRangeOutwards() {
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any())).thenReturn(List.of());
+
+        ItemAvailabilityDto availability = calendar.getAvailability(item.getId(),
+                base.plusMinutes(15), base.plusHours(2).plusMinutes(1));
+
+        assertEquals(base, availability.getFrom());
+        assertEquals(base.plusHours(3), availability.getTo());
+        assertEquals(List.of(slot(0, 3)), availability.getFree());
+    }
+
+    @Test
+    void shouldAnswerRangeBeforeHorizonFromDatabaseWithoutCachingIt() {
+        LocalDateTime now = LocalDateTime.now().withMinute(0).withSecond(0).withNano(0);
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any()))
+                .thenReturn(List.of());
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(),
+                eq(now.minusDays(30)))).thenReturn(List.of(booking(1L, now.minusDays(30), now.minusDays(29))));
+
+        calendar.getAvailability(item.getId(), now, now.plusDays(1));
+        ItemAvailabilityDto past = calendar.getAvailability(item.getId(), now.minusDays(30), now.minusDays(29));
+        calendar.getAvailability(item.getId(), now.minusDays(30), now.minusDays(29));
+
+        assertEquals(List.of(new TimeSlotDto(now.minusDays(30), now.minusDays(29))), past.getBusy());
+        verify(bookingRepository, times(3)).findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any());
+        verify(bookingRepository).findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(),
+                eq(now.minusDays(7)));
+    }
+
+    @Test
+    void shouldReloadItemsCachedLongerThanTtl() {
+        calendar = new ItemAvailabilityCalendar(bookingRepository, new SimpleMeterRegistry(), Duration.ZERO, 2,
+                Duration.ofDays(7));
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(booking(1L, base.plusHours(9), base.plusHours(11))));
+        calendar.getAvailability(item.getId(), base, base.plusDays(1));
+
+        assertEquals(1, calendar.evict(LocalDateTime.now()));
+
+        assertEquals(List.of(slot(9, 11)), calendar.getAvailability(item.getId(), base, base.plusDays(1)).getBusy());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedItemsAboveLimit() {
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any()))
+                .thenReturn(List.of());
+        calendar.getAvailability(1L, base, base.plusDays(1));
+        calendar.getAvailability(2L, base, base.plusDays(1));
+        calendar.getAvailability(3L, base, base.plusDays(1));
+        calendar.getAvailability(1L, base, base.plusDays(1));
+
+        assertEquals(1, calendar.evict(LocalDateTime.now()));
+
+        calendar.getAvailability(1L, base, base.plusDays(1));
+        calendar.getAvailability(3L, base, base.plusDays(1));
+        verify(bookingRepository, times(3)).findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any());
+        calendar.getAvailability(2L, base, base.plusDays(1));
+        verify(bookingRepository, times(4)).findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any());
+    }
+
+    @Test
+    void shouldDropBookingsEndedByMovedHorizon() {
+        LocalDateTime now = LocalDateTime.now().withMinute(0).withSecond(0).withNano(0);
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any()))
+                .thenReturn(List.of(booking(1L, now.minusDays(6), now.minusDays(5)),
+                        booking(2L, now.plusDays(1), now.plusDays(2))))
+                .thenReturn(List.of());
+        calendar.getAvailability(item.getId(), now.minusDays(6), now.plusDays(3));
+
+        calendar.evict(now.plusDays(3));
+
+        assertEquals(List.of(new TimeSlotDto(now.plusDays(1), now.plusDays(2))),
+                calendar.getAvailability(item.getId(), now.minusDays(4), now.plusDays(3)).getBusy());
+        assertEquals(List.of(), calendar.getAvailability(item.getId(), now.minusDays(6), now.plusDays(3)).getBusy());
+        verify(bookingRepository, times(2)).findAllByItemIdAndStatusInAndEndAfter(anyLong(), anyCollection(), any());
+    }
+
+    private TimeSlotDto slot(int fromHour, int toHour) {
+        return new TimeSlotDto(base.plusHours(fromHour), base.plusHours(toHour));
+    }
+
+    private Booking booking(long id, LocalDateTime start, LocalDateTime end) {
+        return Booking.builder()
+                .id(id)
+                .item(item)
+                .start(start)
+                .end(end)
+                .status(Status.APPROVED)
+                .build();
+    }
+}
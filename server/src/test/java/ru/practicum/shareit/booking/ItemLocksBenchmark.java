@@ -0,0 +1,61 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import ru.practicum.shareit.booking.service.ItemLocks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of short critical sections under item locks with 16 threads, either all booking
+ * one hot item or spread over many items.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class ItemLocksBenchmark {
+    @Param({"1", "10000"})
+    private int items;
+
+    private ItemLocks locks;
+
+    @Setup
+    public void setUp() {
+        locks = new ItemLocks(new SimpleMeterRegistry(), 256, Duration.ofMinutes(1));
+    }
+
+    @Benchmark
+    public void createBooking() {
+        long itemId = ThreadLocalRandom.current().nextInt(items);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            locks.lock(itemId);
+            Blackhole.consumeCPU(200);
+        } finally {
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations,
+                    TransactionSynchronization.STATUS_COMMITTED);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ItemLocksBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,155 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import ru.practicum.shareit.booking.service.ItemLocks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItemLocksTest {
+    private SimpleMeterRegistry meterRegistry;
+    private ItemLocks locks;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        locks = new ItemLocks(meterRegistry, 16, Duration.ofMillis(200));
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldSerializeTransactionsOnTheSameItem() throws Exception {
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        locks = new ItemLocks(meterRegistry, 16, Duration.ofSeconds(10));
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<?>> tasks = List.of(
+                executor.submit(() -> bookItem(1L, start, inside, maxInside)),
+                executor.submit(() -> bookItem(1L, start, inside, maxInside)),
+                executor.submit(() -> bookItem(1L, start, inside, maxInside)),
+                executor.submit(() -> bookItem(1L, start, inside, maxInside)));
+        start.countDown();
+        for (Future<?> task : tasks) {
+            task.get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1, maxInside.get());
+        assertTrue(meterRegistry.get("bookings.item_lock.contended").counter().count() > 0);
+    }
+
+    @Test
+    void shouldLetOtherItemsProceedWhileItemIsLocked() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        long otherItem = 2L;
+        while (sameStripe(1L, otherItem)) {
+            otherItem++;
+        }
+
+        executor.submit(() -> inTransaction(() -> {
+            locks.lock(1L);
+            locked.countDown();
+            await(done);
+        }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        long item = otherItem;
+        inTransaction(() -> locks.lock(item));
+        done.countDown();
+
+        assertEquals(0, meterRegistry.get("bookings.item_lock.contended").counter().count());
+    }
+
+    @Test
+    void shouldGiveUpAfterTimeoutAndReleaseStripesTakenSoFar() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        long otherItem = 2L;
+        while (sameStripe(1L, otherItem)) {
+            otherItem++;
+        }
+
+        executor.submit(() -> inTransaction(() -> {
+            locks.lock(1L);
+            locked.countDown();
+            await(done);
+        }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        long item = otherItem;
+
+        assertThrows(CannotAcquireLockException.class, () -> inTransaction(() -> locks.lockAll(List.of(item, 1L))));
+        assertEquals(1, meterRegistry.get("bookings.item_lock.timeouts").counter().count());
+        Future<?> other = executor.submit(() -> inTransaction(() -> locks.lock(item)));
+        other.get(5, TimeUnit.SECONDS);
+        done.countDown();
+    }
+
+    @Test
+    void shouldRequireTransaction() {
+        assertFalse(TransactionSynchronizationManager.isSynchronizationActive());
+        assertThrows(IllegalStateException.class, () -> locks.lock(1L));
+    }
+
+    private void bookItem(long itemId, CountDownLatch start, AtomicInteger inside, AtomicInteger maxInside) {
+        await(start);
+        for (int i = 0; i < 50; i++) {
+            inTransaction(() -> {
+                locks.lock(itemId);
+                maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                Thread.yield();
+                inside.decrementAndGet();
+            });
+        }
+    }
+
+    private boolean sameStripe(long first, long second) {
+        return locks.stripeOf(first) == locks.stripeOf(second);
+    }
+
+    private static void inTransaction(Runnable body) {
+        TransactionSynchronizationManager.initSynchronization();
+        int status = TransactionSynchronization.STATUS_COMMITTED;
+        try {
+            body.run();
+        } catch (RuntimeException e) {
+            status = TransactionSynchronization.STATUS_ROLLED_BACK;
+            throw e;
+        } finally {
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
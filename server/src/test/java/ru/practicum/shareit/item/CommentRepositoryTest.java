@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
@@ -100,4 +101,23 @@ class CommentRepositoryTest {
         assertEquals(List.of(), commentRepository.findAllByItemIdIn(idsFake));
         assertEquals(List.of(), commentRepository.findAllByItemIdIn(idsEmpty));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldPageCommentsNewestFirstAfterCursor() {
+        LocalDateTime created = dbComment.getCreated();
+        Comment sameTime = commentRepository.save(Comment.builder()
+                .text("Same time").created(created).item(dbItem).author(dbUser).build());
+        Comment newest = commentRepository.save(Comment.builder()
+                .text("Newest").created(created.plusHours(1)).item(dbItem).author(dbUser).build());
+        Comment older = commentRepository.save(Comment.builder()
+                .text("Older").created(created.minusHours(1)).item(dbItem).author(dbUser).build());
+        CommentCursor first = CommentCursor.FIRST;
+
+        assertEquals(List.of(newest, sameTime), commentRepository.findPageByItemId(dbItem.getId(),
+                first.getCreated(), first.getId(), PageRequest.of(0, 2)));
+        assertEquals(List.of(dbComment, older), commentRepository.findPageByItemId(dbItem.getId(),
+                sameTime.getCreated(), sameTime.getId(), PageRequest.of(0, 2)));
+        assertEquals(List.of(), commentRepository.findPageByItemId(999L,
+                first.getCreated(), first.getId(), PageRequest.of(0, 2)));
+    }
+}
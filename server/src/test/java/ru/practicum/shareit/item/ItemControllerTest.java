@@ -8,10 +8,17 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentPage;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemCatalogDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemPage;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.request.ItemRequest;
@@ -25,6 +32,7 @@ import java.util.List;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -182,8 +190,8 @@ class ItemControllerTest {
     @Test
     @SneakyThrows
     void shouldReturnItemWhenSearchingAvailableByText() {
-        when(itemServiceMock.searchAvailableItems(Mockito.anyLong(),Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt()))
-                .thenReturn(List.of(itemDto1));
+        when(itemServiceMock.searchAvailableItems(Mockito.anyLong(),Mockito.anyString(), Mockito.isNull(), Mockito.isNull(), Mockito.anyInt(), Mockito.anyInt()))
+                .thenReturn(new SliceImpl<>(List.of(itemDto1), PageRequest.of(0, 20), true));
 
         mockMvc.perform(get("/items/search", 1L)
                         .header("X-Sharer-User-Id", 1L)
@@ -198,8 +206,72 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$[0].available").value(itemDto1.getAvailable()))
                 .andExpect(jsonPath("$[0].owner.id").value(itemDto1.getOwner().getId()))
                 .andExpect(jsonPath("$[0].owner.name").value(itemDto1.getOwner().getName()))
-                .andExpect(jsonPath("$[0].requestId").value(itemDto1.getRequestId()));
-        verify(itemServiceMock).searchAvailableItems(1L, "ItemCreation".toLowerCase(), 1, 20);
+                .andExpect(jsonPath("$[0].requestId").value(itemDto1.getRequestId()))
+                .andExpect(header().string("X-Has-More", "true"));
+        verify(itemServiceMock).searchAvailableItems(1L, "ItemCreation".toLowerCase(), null, null, 1, 20);
+    }
+
+    @Test
+    @SneakyThrows
+    void shouldPassSearchWindowWhenSearchingFreeItems() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        when(itemServiceMock.searchAvailableItems(1L, "iron", start, start.plusDays(1), 0, 10))
+                .thenReturn(new SliceImpl<>(List.of(itemDto1)));
+
+        mockMvc.perform(get("/items/search")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("text", "Iron")
+                        .param("start", "2030-01-01T10:00:00")
+                        .param("end", "2030-01-02T10:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(itemDto1.getId()))
+                .andExpect(header().string("X-Has-More", "false"));
+        verify(itemServiceMock).searchAvailableItems(1L, "iron", start, start.plusDays(1), 0, 10);
+    }
+
+    @Test
+    @SneakyThrows
+    void shouldReturnCatalogPageWithNextCursorHeader() {
+        ItemCatalogDto catalogDto = ItemCatalogDto.builder()
+                .id(itemDto1.getId()).name(itemDto1.getName()).available(true).bookingCount(3).commentCount(2).build();
+        when(itemServiceMock.getCatalogPage(1L, "Mg", 1)).thenReturn(new ItemPage(List.of(catalogDto), "Mg"));
+
+        mockMvc.perform(get("/items/catalog")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("cursor", "Mg")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(catalogDto.getId()))
+                .andExpect(jsonPath("$[0].bookingCount").value(3))
+                .andExpect(jsonPath("$[0].commentCount").value(2))
+                .andExpect(header().string("X-Next-Cursor", "Mg"));
+    }
+
+    @Test
+    @SneakyThrows
+    void shouldOmitNextCursorHeaderOnLastCatalogPage() {
+        when(itemServiceMock.getCatalogPage(1L, null, 10)).thenReturn(new ItemPage(List.of(), null));
+
+        mockMvc.perform(get("/items/catalog")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty())
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    @SneakyThrows
+    void shouldReturnCommentPageWithNextCursorHeader() {
+        CommentDto commentDto = CommentDto.builder().id(1L).text("Nice").authorName("User").build();
+        when(itemServiceMock.getComments(1L, 1L, null, 1)).thenReturn(new CommentPage(List.of(commentDto), "Mg"));
+
+        mockMvc.perform(get("/items/{itemId}/comments", 1L)
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[0].text").value("Nice"))
+                .andExpect(header().string("X-Next-Cursor", "Mg"));
     }
 
     @Test
@@ -219,4 +291,25 @@ class ItemControllerTest {
                         .truncatedTo(ChronoUnit.SECONDS).toString()));
         verify(itemServiceMock).addComment(1L, 1L, commentCreationDto);
     }
-}
\ No newline at end of file
+
+    @Test
+    @SneakyThrows
+    void shouldReturnFreeAndBusySlotsOfItem() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        when(itemServiceMock.getAvailability(1L, 1L, from, to)).thenReturn(new ItemAvailabilityDto(1L, from, to,
+                List.of(new TimeSlotDto(from, from.plusHours(10))), List.of(new TimeSlotDto(from.plusHours(10), to))));
+
+        mockMvc.perform(get("/items/{itemId}/availability", 1L)
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("from", "2030-01-01T00:00:00")
+                        .param("to", "2030-01-02T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId").value(1L))
+                .andExpect(jsonPath("$.free[0].start").value("2030-01-01T00:00:00"))
+                .andExpect(jsonPath("$.free[0].end").value("2030-01-01T10:00:00"))
+                .andExpect(jsonPath("$.busy[0].start").value("2030-01-01T10:00:00"))
+                .andExpect(jsonPath("$.busy[0].end").value("2030-01-02T00:00:00"));
+        verify(itemServiceMock).getAvailability(1L, 1L, from, to);
+    }
+}
@@ -0,0 +1,118 @@
+package ru.practicum.shareit.item;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the item detail view seen by the owner: ItemService.getById against the previous path of separate
+ * user, item, next booking, last booking and comment queries. Runs on the in-memory H2 database of the tests
+ * unless spring.datasource.* system properties point it elsewhere.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemDetailBenchmark {
+    @Param({"10"})
+    private int comments;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private UserService userService;
+    private BookingRepository bookingRepo;
+    private CommentRepository commentRepo;
+    private TransactionTemplate readOnly;
+    private long ownerId;
+    private long itemId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItServer.class)
+                .web(WebApplicationType.NONE)
+                .run();
+        itemService = context.getBean(ItemService.class);
+        userService = context.getBean(UserService.class);
+        bookingRepo = context.getBean(BookingRepository.class);
+        commentRepo = context.getBean(CommentRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        UserRepository userRepo = context.getBean(UserRepository.class);
+        String suffix = System.nanoTime() + "@bench.ru";
+        User owner = userRepo.save(User.builder().name("Owner").email("owner" + suffix).build());
+        Item item = context.getBean(ItemRepository.class).save(Item.builder()
+                .name("Drill").description("Cordless drill").available(true).owner(owner).build());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < comments; i++) {
+            User author = userRepo.save(User.builder().name("Author " + i).email("author" + i + suffix).build());
+            bookingRepo.save(Booking.builder().item(item).booker(author).start(now.minusDays(i + 2))
+                    .end(now.minusDays(i + 1)).status(Status.APPROVED).build());
+            bookingRepo.save(Booking.builder().item(item).booker(author).start(now.plusDays(i + 1))
+                    .end(now.plusDays(i + 2)).status(Status.APPROVED).build());
+            commentRepo.save(Comment.builder().text("Comment " + i).item(item).author(author)
+                    .created(now.minusDays(i)).build());
+        }
+        ownerId = owner.getId();
+        itemId = item.getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ItemDto detailView() {
+        return itemService.getById(ownerId, itemId);
+    }
+
+    @Benchmark
+    public ItemDto separateQueries() {
+        return readOnly.execute(status -> {
+            User user = userService.getUserById(ownerId);
+            Item item = itemService.getItemById(itemId);
+            ItemDto dto = ItemMapper.toDto(item);
+            if (item.getOwner().equals(user)) {
+                LocalDateTime now = LocalDateTime.now();
+                dto.setNextBooking(bookingRepo.findNextByItemId(itemId, now, Status.APPROVED, PageRequest.of(0, 1))
+                        .stream().findFirst().orElse(null));
+                dto.setLastBooking(bookingRepo.findLastByItemId(itemId, now, Status.APPROVED, PageRequest.of(0, 1))
+                        .stream().findFirst().orElse(null));
+            }
+            dto.setComments(CommentMapper.toDto(commentRepo.findAllByItemId(itemId)));
+            return dto;
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ItemDetailBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
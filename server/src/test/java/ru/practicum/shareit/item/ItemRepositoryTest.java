@@ -1,13 +1,22 @@
 package ru.practicum.shareit.item;
 
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.dto.ItemCatalogDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.ItemRequest;
@@ -20,8 +29,10 @@ import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @AutoConfigureTestDatabase
 class ItemRepositoryTest {
     @Autowired
@@ -30,6 +41,10 @@ class ItemRepositoryTest {
     private UserRepository userRepository;
     @Autowired
     private ItemRequestRepository itemRequestRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private TestEntityManager entityManager;
 
     private User user;
     private User dbUser;
@@ -76,22 +91,51 @@ class ItemRepositoryTest {
 
     @Test
     void shouldReturnListOfSingleItemWhenSearchingByText() {
-        assertEquals(List.of(dbItem), itemRepository.search("iro", pageable));
+        assertEquals(List.of(dbItem), itemRepository.search("iro", pageable).getContent());
     }
 
     @Test
     void shouldReturnEmptyListWhenSearchingNonExistentItem() {
-        assertEquals(List.of(), itemRepository.search("jump", pageable));
+        assertEquals(List.of(), itemRepository.search("jump", pageable).getContent());
+    }
+
+    @Test
+    void shouldSkipUnavailableItemsWhenSearchingByText() {
+        dbItem.setAvailable(false);
+        itemRepository.save(dbItem);
+
+        assertEquals(List.of(), itemRepository.search("iro", pageable).getContent());
+    }
+
+    @Test
+    void shouldSkipItemsApprovedInWindowAndKeepPagesFullWhenSearchingFreeItems() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 10, 12, 0);
+        LocalDateTime end = start.plusDays(2);
+        Item rejected = itemRepository.save(Item.builder()
+                .name("Iron").description("Steam iron").owner(dbUser).available(true).build());
+        Item endsAtStart = itemRepository.save(Item.builder()
+                .name("Iron").description("Travel iron").owner(dbUser).available(true).build());
+        saveBooking(dbItem, start.minusDays(1), start.plusHours(1), Status.APPROVED);
+        saveBooking(rejected, start, end, Status.REJECTED);
+        saveBooking(endsAtStart, start.minusDays(1), start, Status.APPROVED);
+        Pageable firstPage = PageRequest.of(0, 1, Sort.by("id").ascending());
+        Pageable secondPage = PageRequest.of(1, 1, Sort.by("id").ascending());
+
+        assertEquals(List.of(rejected), itemRepository.searchFreeBetween("iro", start, end, firstPage).getContent());
+        assertEquals(List.of(endsAtStart), itemRepository.searchFreeBetween("iro", start, end, secondPage).getContent());
+        assertEquals(List.of(dbItem), itemRepository.searchFreeBetween("iro", end, end.plusDays(1), firstPage).getContent());
+        assertTrue(itemRepository.searchFreeBetween("iro", start, end, firstPage).hasNext());
+        assertFalse(itemRepository.searchFreeBetween("iro", start, end, secondPage).hasNext());
     }
 
     @Test
     void shouldReturnListOfSingleItemWhenFindingByValidRequestId() {
-        assertEquals(List.of(dbItem), itemRepository.findAllByRequestId(dbItemRequest.getId()));
+        assertEquals(List.of(ItemMapper.toShortDto(dbItem)), itemRepository.findShortByRequestId(dbItemRequest.getId()));
     }
 
     @Test
     void shouldReturnListOfSingleItemWhenFindingByWrongRequestId() {
-        assertEquals(List.of(), itemRepository.findAllByRequestId(999L));
+        assertEquals(List.of(), itemRepository.findShortByRequestId(999L));
     }
 
     @Test
@@ -114,7 +158,8 @@ class ItemRepositoryTest {
 
         List<Long> ids = List.of(dbItemRequest.getId(), dbItemRequest2.getId());
 
-        assertEquals(List.of(dbItem, dbItem2), itemRepository.findAllByRequestIdIn(ids));
+        assertEquals(List.of(ItemMapper.toShortDto(dbItem), ItemMapper.toShortDto(dbItem2)),
+                itemRepository.findShortByRequestIdIn(ids));
     }
 
     @Test
@@ -122,7 +167,96 @@ class ItemRepositoryTest {
         List<Long> idsFake = List.of(999L, 1000L);
         List<Long> idsEmpty = List.of();
 
-        assertEquals(List.of(), itemRepository.findAllByRequestIdIn(idsFake));
-        assertEquals(List.of(), itemRepository.findAllByRequestIdIn(idsEmpty));
+        assertEquals(List.of(), itemRepository.findShortByRequestIdIn(idsFake));
+        assertEquals(List.of(), itemRepository.findShortByRequestIdIn(idsEmpty));
+    }
+
+    @Test
+    void shouldReturnItemWithOwnerInOneStatementWhenFindingDetail() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Item item = itemRepository.findDetailById(dbItem.getId(), dbUser.getId()).orElseThrow();
+
+        assertEquals(dbItem, item);
+        assertTrue(Hibernate.isInitialized(item.getOwner()));
+        assertEquals("User", item.getOwner().getName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldReturnEmptyWhenFindingDetailWithWrongItemOrUserId() {
+        assertTrue(itemRepository.findDetailById(999L, dbUser.getId()).isEmpty());
+        assertTrue(itemRepository.findDetailById(dbItem.getId(), 999L).isEmpty());
+    }
+
+    @Test
+    void shouldIncrementCommentCountWithoutTouchingVersion() {
+        entityManager.flush();
+        long version = dbItem.getVersion();
+
+        itemRepository.incrementCommentCount(dbItem.getId());
+        itemRepository.incrementCommentCount(dbItem.getId());
+        entityManager.clear();
+        Item item = itemRepository.findById(dbItem.getId()).orElseThrow();
+
+        assertEquals(2, item.getCommentCount());
+        assertEquals(version, item.getVersion());
+    }
+
+    @Test
+    void shouldPageOwnersItemsByIdWithBookingsAndCountsWhenFindingCatalogPage() {
+        LocalDateTime now = LocalDateTime.of(2030, 1, 10, 12, 0);
+        User booker = userRepository.save(User.builder().name("Booker").email("booker@ya.ru").build());
+        User stranger = userRepository.save(User.builder().name("Stranger").email("stranger@ya.ru").build());
+        Item second = itemRepository.save(Item.builder()
+                .name("Drill").description("Drill").owner(dbUser).available(false).build());
+        itemRepository.save(Item.builder().name("Saw").description("Saw").owner(stranger).available(true).build());
+        Item third = itemRepository.save(Item.builder()
+                .name("Saw").description("Saw").owner(dbUser).available(true).build());
+        saveBooking(dbItem, booker, now.minusDays(5), now.minusDays(4), Status.APPROVED);
+        Booking last = saveBooking(dbItem, booker, now.minusDays(3), now.minusDays(2), Status.APPROVED);
+        Booking next = saveBooking(dbItem, booker, now.plusDays(1), now.plusDays(2), Status.APPROVED);
+        saveBooking(dbItem, booker, now.plusHours(1), now.plusHours(2), Status.REJECTED);
+        saveBooking(second, booker, now.plusDays(1), now.plusDays(2), Status.WAITING);
+        entityManager.flush();
+        itemRepository.incrementCommentCount(dbItem.getId());
+        itemRepository.incrementCommentCount(dbItem.getId());
+
+        List<ItemCatalogDto> firstPage = itemRepository.findCatalogPage(dbUser.getId(), 0, now, 2);
+        List<ItemCatalogDto> lastPage = itemRepository.findCatalogPage(dbUser.getId(), second.getId(), now, 2);
+
+        assertEquals(List.of(dbItem.getId(), second.getId()),
+                List.of(firstPage.get(0).getId(), firstPage.get(1).getId()));
+        assertEquals(ItemCatalogDto.builder()
+                .id(dbItem.getId()).name("Iron").description("Iron iron").available(true)
+                .requestId(dbItemRequest.getId())
+                .lastBooking(new BookingShortDto(last.getId(), last.getStart(), last.getEnd(), booker.getId()))
+                .nextBooking(new BookingShortDto(next.getId(), next.getStart(), next.getEnd(), booker.getId()))
+                .bookingCount(4).commentCount(2)
+                .build(), firstPage.get(0));
+        assertEquals(ItemCatalogDto.builder()
+                .id(second.getId()).name("Drill").description("Drill").available(false)
+                .bookingCount(1).commentCount(0)
+                .build(), firstPage.get(1));
+        assertEquals(List.of(third.getId()), List.of(lastPage.get(0).getId()));
+        assertEquals(1, lastPage.size());
+    }
+
+    private void saveBooking(Item item, LocalDateTime start, LocalDateTime end, Status status) {
+        saveBooking(item, dbUser, start, end, status);
+    }
+
+    private Booking saveBooking(Item item, User booker, LocalDateTime start, LocalDateTime end, Status status) {
+        return bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(start)
+                .end(end)
+                .status(status)
+                .build());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,104 @@
+package ru.practicum.shareit.item;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.practicum.shareit.item.service.TrigramIndex;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search latency over generated items: the in-memory trigram index against the LIKE query of
+ * ItemRepository.search on an in-memory H2 table. LIKE only finds exact substrings, so it misses
+ * the Cyrillic and misspelled matches the index returns for "drel".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class ItemSearchBenchmark {
+    private static final String[] NAMES = {"Дрель", "Drill", "Молоток", "Hammer", "Пила", "Saw", "Лестница",
+            "Ladder", "Палатка", "Tent", "Велосипед", "Bicycle", "Отвертка", "Screwdriver", "Камера", "Camera"};
+    private static final String[] ADJECTIVES = {"ударная", "cordless", "тяжелый", "heavy", "складная", "folding",
+            "туристическая", "camping", "горный", "mountain", "крестовая", "phillips", "цифровая", "digital"};
+    private static final String LIKE = "select id from items where available = true " +
+            "and (lower(name) like ? or lower(description) like ?) order by id limit 10";
+
+    @Param({"1000000"})
+    private int items;
+
+    @Param({"drel", "hammer", "987654"})
+    private String text;
+
+    private TrigramIndex index;
+    private Connection connection;
+    private PreparedStatement like;
+
+    @Setup
+    public void setUp() throws SQLException {
+        index = new TrigramIndex(0.4);
+        connection = DriverManager.getConnection("jdbc:h2:mem:search");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table items (id bigint primary key, name varchar(255), " +
+                    "description varchar(512), available boolean)");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("insert into items values (?, ?, ?, ?)")) {
+            for (int id = 1; id <= items; id++) {
+                String name = NAMES[id % NAMES.length] + " " + ADJECTIVES[id / NAMES.length % ADJECTIVES.length];
+                String description = "Item number " + id + " " + NAMES[id * 7 % NAMES.length];
+                boolean available = id % 10 != 0;
+                index.put(id, name + " " + description, available);
+                insert.setLong(1, id);
+                insert.setString(2, name);
+                insert.setString(3, description);
+                insert.setBoolean(4, available);
+                insert.addBatch();
+                if (id % 10_000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        like = connection.prepareStatement(LIKE);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public List<Long> trigramIndex() {
+        return index.search(text, 0, 10);
+    }
+
+    @Benchmark
+    public List<Long> likeScan() throws SQLException {
+        like.setString(1, "%" + text + "%");
+        like.setString(2, "%" + text + "%");
+        List<Long> ids = new ArrayList<>();
+        try (ResultSet rows = like.executeQuery()) {
+            while (rows.next()) {
+                ids.add(rows.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ItemSearchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.dto.ItemShortDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSearchIndex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchIndexTest {
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Test
+    void shouldRebuildFromDatabaseInChunks() {
+        when(itemRepository.findShortByIdGreaterThan(0L, PageRequest.of(0, 2))).thenReturn(List.of(
+                new ItemShortDto(1L, "Drill", "Cordless", true, null),
+                new ItemShortDto(2L, "Дрель", "Ударная", true, null)));
+        when(itemRepository.findShortByIdGreaterThan(2L, PageRequest.of(0, 2))).thenReturn(List.of(
+                new ItemShortDto(5L, "Drill", "Broken", false, null)));
+        ItemSearchIndex index = new ItemSearchIndex(itemRepository, true, 0.4, 2, 2);
+
+        assertFalse(index.isReady());
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(2L, 1L), index.search("drel", 0, 10));
+    }
+
+    @Test
+    void shouldNotBeReadyAfterFailedRebuild() {
+        when(itemRepository.findShortByIdGreaterThan(0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(new ItemShortDto(1L, "Drill", "Cordless", true, null)))
+                .thenThrow(new DataAccessResourceFailureException("Connection lost"));
+        ItemSearchIndex index = new ItemSearchIndex(itemRepository, true, 0.4, 2, 2);
+        index.rebuild();
+
+        assertThrows(DataAccessResourceFailureException.class, index::rebuild);
+
+        assertFalse(index.isReady());
+        assertFalse(new ItemSearchIndex(itemRepository, false, 0.4, 2, 2).isReady());
+    }
+
+    @Test
+    void shouldIndexItemsPutOutsideTransaction() {
+        ItemSearchIndex index = new ItemSearchIndex(itemRepository, true, 0.4, 2, 2);
+
+        index.put(Item.builder().id(7L).name("Hammer").description("Heavy").available(true).build());
+
+        assertEquals(List.of(7L), index.search("hamer", 0, 10));
+    }
+}
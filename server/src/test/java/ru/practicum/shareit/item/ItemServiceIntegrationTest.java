@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.item.dto.ItemDto;
@@ -68,10 +69,10 @@ class ItemServiceIntegrationTest {
 
     @Test
     void shouldReturnListOfDtosWhenSearchingByText() {
-        List<ItemDto> result1 = itemService.searchAvailableItems(userDto1.getId(),"Item", 1, 20);
-        List<ItemDto> result2 = itemService.searchAvailableItems(userDto1.getId(), "Vscr", 1, 20);
-        List<ItemDto> result3 = itemService.searchAvailableItems(userDto1.getId(),"Descr", 1, 20);
-        List<ItemDto> result4 = itemService.searchAvailableItems(userDto1.getId(),"Nice", 1, 20);
+        List<ItemDto> result1 = itemService.searchAvailableItems(userDto1.getId(),"Item", null, null, 1, 20).getContent();
+        List<ItemDto> result2 = itemService.searchAvailableItems(userDto1.getId(), "Vscr", null, null, 1, 20).getContent();
+        List<ItemDto> result3 = itemService.searchAvailableItems(userDto1.getId(),"Descr", null, null, 1, 20).getContent();
+        List<ItemDto> result4 = itemService.searchAvailableItems(userDto1.getId(),"Nice", null, null, 1, 20).getContent();
 
         assertThat(result1).asList().containsExactly(itemDto1, itemDto2);
         assertThat(result2).asList().containsExactly(itemDto2);
@@ -79,6 +80,17 @@ class ItemServiceIntegrationTest {
         assertThat(result4).isEmpty();
     }
 
+    @Test
+    void shouldTellWhetherMoreItemsMatch() {
+        Slice<ItemDto> first = itemService.searchAvailableItems(userDto1.getId(), "Item", null, null, 0, 1);
+        Slice<ItemDto> second = itemService.searchAvailableItems(userDto1.getId(), "Item", null, null, 1, 1);
+
+        assertThat(first.getContent()).containsExactly(itemDto1);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).containsExactly(itemDto2);
+        assertThat(second.hasNext()).isFalse();
+    }
+
     @Test
     void shouldReturnItemDtoListWhenGettingByUserId() {
         assertThat(itemService.getUsersItems(userDto1.getId(), 0, 20).get(0)).isEqualTo(itemDto1);
@@ -9,16 +9,28 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.BookingArchiveRepository;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.ItemBookingsDto;
+import ru.practicum.shareit.booking.service.ItemAvailabilityCalendar;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentPage;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemCatalogDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemPage;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSearchIndex;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.service.ItemRequestService;
@@ -46,7 +58,13 @@ class ItemServiceTest {
     @Mock
     private BookingRepository bookingRepository;
     @Mock
+    private BookingArchiveRepository bookingArchiveRepository;
+    @Mock
     private CommentRepository commentRepository;
+    @Mock
+    private ItemAvailabilityCalendar calendar;
+    @Mock
+    private ItemSearchIndex searchIndex;
 
     @InjectMocks
     private ItemServiceImpl itemService;
@@ -106,14 +124,115 @@ class ItemServiceTest {
 
     @Test
     void shouldReturnItemDtoWhenSearchingByText() {
-        when(itemRepository.search(Mockito.anyString(), Mockito.any(Pageable.class))).thenReturn(List.of(item1));
+        when(itemRepository.search(Mockito.anyString(), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(item1)));
+
+        assertThat(itemService.searchAvailableItems(1L,"iro", null, null, 1, 20).getContent()).asList().contains(itemDto1);
+    }
+
+    @Test
+    void shouldSearchFreeItemsWhenWindowIsPassed() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        when(itemRepository.searchFreeBetween(Mockito.anyString(), Mockito.eq(start), Mockito.eq(start.plusDays(1)),
+                Mockito.any(Pageable.class))).thenReturn(new SliceImpl<>(List.of(item1)));
+
+        assertThat(itemService.searchAvailableItems(1L, "iro", start, start.plusDays(1), 1, 20).getContent())
+                .asList().contains(itemDto1);
+        verify(itemRepository, times(0)).search(Mockito.anyString(), Mockito.any(Pageable.class));
+    }
 
-        assertThat(itemService.searchAvailableItems(1L,"iro", 1, 20)).asList().contains(itemDto1);
+    @Test
+    void shouldSearchInIndexAndKeepItsOrderWhenIndexIsEnabled() {
+        Item item2 = Item.builder().id(2L).name("Drill").description("Drill").available(true).owner(user1).build();
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.search("drel", 0, 3)).thenReturn(List.of(2L, 1L, 5L));
+        when(itemRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(item1, item2));
+
+        Slice<ItemDto> result = itemService.searchAvailableItems(1L, "drel", null, null, 0, 2);
+
+        assertThat(result.getContent().size()).isEqualTo(2);
+        assertThat(result.getContent().get(0).getId()).isEqualTo(2L);
+        assertThat(result.getContent().get(1).getId()).isEqualTo(1L);
+        assertThat(result.hasNext()).isTrue();
+        verify(itemRepository, times(0)).search(Mockito.anyString(), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    void shouldSearchInDatabaseUntilIndexIsReady() {
+        when(searchIndex.isReady()).thenReturn(false);
+        when(itemRepository.search(Mockito.anyString(), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(item1)));
+
+        assertThat(itemService.searchAvailableItems(1L, "iro", null, null, 0, 20).getContent())
+                .asList().containsExactly(itemDto1);
+        verify(searchIndex, never()).search(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt());
+    }
+
+    @Test
+    void shouldJoinLastAndNextBookingsOnlyToOwnItemsWhenListing() {
+        Item foreign = Item.builder().id(2L).name("Drill").description("Drill").available(true).owner(user2).build();
+        BookingShortDto last = new BookingShortDto(10L, LocalDateTime.now().minusDays(2),
+                LocalDateTime.now().minusDays(1), user2.getId());
+        when(userService.getUserById(user1.getId())).thenReturn(user1);
+        when(itemRepository.search(Mockito.anyString(), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(item1, foreign)));
+        when(bookingRepository.findLastAndNextApproved(Mockito.eq(List.of(item1.getId())), Mockito.any()))
+                .thenReturn(List.of(new ItemBookingsDto(item1.getId(), last, null)));
+
+        List<ItemDto> result = itemService.searchAvailableItems(user1.getId(), "dr", null, null, 0, 20).getContent();
+
+        assertThat(result.get(0).getLastBooking()).isEqualTo(last);
+        assertThat(result.get(0).getNextBooking()).isNull();
+        assertThat(result.get(1).getLastBooking()).isNull();
+    }
+
+    @Test
+    void shouldReturnNextCursorOfLastItemWhenCatalogHasMoreItems() {
+        ItemCatalogDto first = ItemCatalogDto.builder().id(5L).build();
+        ItemCatalogDto second = ItemCatalogDto.builder().id(8L).build();
+        when(userService.getUserById(user1.getId())).thenReturn(user1);
+        when(itemRepository.findCatalogPage(Mockito.eq(user1.getId()), Mockito.eq(5L), Mockito.any(), Mockito.eq(2)))
+                .thenReturn(List.of(second));
+        when(itemRepository.findCatalogPage(Mockito.eq(user1.getId()), Mockito.eq(0L), Mockito.any(), Mockito.eq(2)))
+                .thenReturn(List.of(first, second));
+
+        ItemPage firstPage = itemService.getCatalogPage(user1.getId(), null, 1);
+        ItemPage lastPage = itemService.getCatalogPage(user1.getId(), firstPage.getNextCursor(), 1);
+
+        assertThat(firstPage.getItems()).isEqualTo(List.of(first));
+        assertThat(ItemCursor.decode(firstPage.getNextCursor()).getId()).isEqualTo(5L);
+        assertThat(lastPage.getItems()).isEqualTo(List.of(second));
+        assertThat(lastPage.getNextCursor()).isNull();
+    }
+
+    @Test
+    void shouldThrowValidationExceptionWhenCatalogCursorIsInvalid() {
+        when(userService.getUserById(user1.getId())).thenReturn(user1);
+
+        assertThrows(ValidationException.class, () -> itemService.getCatalogPage(user1.getId(), "%%%", 10));
+        assertThrows(ValidationException.class, () -> itemService.getCatalogPage(user1.getId(), "YWJj", 10));
+    }
+
+    @Test
+    void shouldThrowValidationExceptionWhenCatalogPageSizeIsOutOfRange() {
+        when(userService.getUserById(user1.getId())).thenReturn(user1);
+
+        assertThrows(ValidationException.class, () -> itemService.getCatalogPage(user1.getId(), null, 0));
+        assertThrows(ValidationException.class,
+                () -> itemService.getCatalogPage(user1.getId(), null, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void shouldThrowValidationExceptionWhenSearchWindowIsWrong() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        assertThrows(ValidationException.class, () -> itemService.searchAvailableItems(1L, "iro", start, null, 1, 20));
+        assertThrows(ValidationException.class, () -> itemService.searchAvailableItems(1L, "iro", start, start, 1, 20));
     }
 
     @Test
     void shouldReturnEmptyWhenSearchingByWrongText() {
-        assertThat(itemService.searchAvailableItems(1L,"", 1, 20).size()).isZero();
+        assertThat(itemService.searchAvailableItems(1L,"", null, null, 1, 20).getContent().size()).isZero();
         verify(itemRepository, times(0)).search("", pageable);
     }
 
@@ -133,9 +252,62 @@ class ItemServiceTest {
 
     @Test
     void shouldReturnItemDtoWhenGettingById() {
-        when(itemRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(item1));
+        when(itemRepository.findDetailById(item1.getId(), user2.getId())).thenReturn(Optional.of(item1));
         itemDto1.setComments(new ArrayList<>());
-        assertThat(itemService.getById(1L, 1L)).isEqualTo(itemDto1);
+        assertThat(itemService.getById(user2.getId(), item1.getId())).isEqualTo(itemDto1);
+        verify(bookingRepository, times(0)).findLastAndNextApproved(Mockito.anyList(), Mockito.any());
+    }
+
+    @Test
+    void shouldReturnLatestCommentsAndBookingsToOwnerWhenGettingById() {
+        Comment newer = Comment.builder().id(2L).text("Bad").author(user2).item(item1)
+                .created(comment.getCreated().plusHours(1)).build();
+        BookingShortDto next = new BookingShortDto(10L, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2), user2.getId());
+        item1.setCommentCount(25);
+        when(itemRepository.findDetailById(item1.getId(), user1.getId())).thenReturn(Optional.of(item1));
+        when(commentRepository.findPageByItemId(Mockito.eq(item1.getId()), Mockito.any(), Mockito.anyLong(),
+                Mockito.eq(PageRequest.of(0, 10)))).thenReturn(List.of(newer, comment));
+        when(bookingRepository.findLastAndNextApproved(Mockito.eq(List.of(item1.getId())), Mockito.any()))
+                .thenReturn(List.of(new ItemBookingsDto(item1.getId(), null, next)));
+
+        ItemDto result = itemService.getById(user1.getId(), item1.getId());
+
+        assertThat(result.getComments()).isEqualTo(List.of(CommentMapper.toDto(newer), CommentMapper.toDto(comment)));
+        assertThat(result.getCommentCount()).isEqualTo(25);
+        assertThat(result.getNextBooking()).isEqualTo(next);
+        assertThat(result.getLastBooking()).isNull();
+    }
+
+    @Test
+    void shouldReturnNextCursorOfLastCommentWhenItemHasMoreComments() {
+        Comment older = Comment.builder().id(2L).text("Old").author(user2).item(item1)
+                .created(comment.getCreated().minusDays(1)).build();
+        when(itemRepository.findById(item1.getId())).thenReturn(Optional.of(item1));
+        when(commentRepository.findPageByItemId(item1.getId(), CommentCursor.FIRST.getCreated(),
+                CommentCursor.FIRST.getId(), PageRequest.of(0, 2))).thenReturn(List.of(comment, older));
+        when(commentRepository.findPageByItemId(item1.getId(), comment.getCreated(), comment.getId(),
+                PageRequest.of(0, 2))).thenReturn(List.of(older));
+
+        CommentPage firstPage = itemService.getComments(user2.getId(), item1.getId(), null, 1);
+        CommentPage lastPage = itemService.getComments(user2.getId(), item1.getId(), firstPage.getNextCursor(), 1);
+
+        assertThat(firstPage.getComments()).isEqualTo(List.of(CommentMapper.toDto(comment)));
+        assertThat(lastPage.getComments()).isEqualTo(List.of(CommentMapper.toDto(older)));
+        assertThat(lastPage.getNextCursor()).isNull();
+    }
+
+    @Test
+    void shouldThrowExceptionWhenGettingCommentsOfWrongItem() {
+        assertThrows(NotFoundException.class, () -> itemService.getComments(1L, 999L, null, 10));
+        assertThrows(ValidationException.class, () -> CommentCursor.decode("YWJj"));
+    }
+
+    @Test
+    void shouldThrowValidationExceptionWhenCommentPageSizeIsOutOfRange() {
+        assertThrows(ValidationException.class, () -> itemService.getComments(1L, item1.getId(), null, 0));
+        assertThrows(ValidationException.class,
+                () -> itemService.getComments(1L, item1.getId(), null, Integer.MAX_VALUE));
     }
 
     @Test
@@ -143,6 +315,14 @@ class ItemServiceTest {
         assertThrows(NotFoundException.class, () -> itemService.getById(1L, 999L));
     }
 
+    @Test
+    void shouldThrowExceptionOfUserWhenGettingByIdWithWrongUserId() {
+        when(userService.getUserById(999L)).thenThrow(new NotFoundException("User with provided ID is not found!"));
+
+        NotFoundException exception = assertThrows(NotFoundException.class, () -> itemService.getById(999L, 1L));
+        assertThat(exception.getMessage()).isEqualTo("User with provided ID is not found!");
+    }
+
     @Test
     void shouldReturnItemDtoWhenRegisteringItem() {
         when(userService.getUserById(Mockito.anyLong())).thenReturn(user1);
@@ -191,12 +371,26 @@ class ItemServiceTest {
 
         CommentDto commentDto = itemService.addComment(1L, 1L, commentCreationDto);
 
+        verify(itemRepository).incrementCommentCount(item1.getId());
         assertThat(commentDto.getText()).isEqualTo(comment.getText());
         assertThat(commentDto.getAuthorName()).isEqualTo(comment.getAuthor().getName());
         assertThat(commentDto.getCreated().truncatedTo(ChronoUnit.SECONDS))
                 .isEqualTo(comment.getCreated().truncatedTo(ChronoUnit.SECONDS));
     }
 
+    @Test
+    void shouldAddCommentsToItemBookedInArchivedBooking() {
+        when(userService.getUserById(Mockito.anyLong())).thenReturn(user1);
+        when(itemRepository.findById(Mockito.anyLong())).thenReturn(Optional.ofNullable(item1));
+        when(bookingRepository.existsByBookerIdAndItemIdAndEndBefore(Mockito.anyLong(), Mockito.anyLong(),
+                Mockito.any(LocalDateTime.class))).thenReturn(false);
+        when(bookingArchiveRepository.existsByBookerIdAndItemId(user1.getId(), item1.getId())).thenReturn(true);
+        when(commentRepository.save(any(Comment.class))).thenReturn(comment);
+
+        assertThat(itemService.addComment(user1.getId(), item1.getId(), commentCreationDto).getText())
+                .isEqualTo(comment.getText());
+    }
+
     @Test
     void shouldThrowExceptionWhenAddingCommentToNotBookedItem() {
         when(userService.getUserById(Mockito.anyLong())).thenReturn(user1);
@@ -206,4 +400,30 @@ class ItemServiceTest {
 
         assertThrows(ValidationException.class, () -> itemService.addComment(1L, 2L, commentCreationDto));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnAvailabilityFromCalendar() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusYears(1);
+        ItemAvailabilityDto availability = new ItemAvailabilityDto(item1.getId(), from, to,
+                List.of(new TimeSlotDto(from, to)), List.of());
+        when(itemRepository.existsById(item1.getId())).thenReturn(true);
+        when(calendar.getAvailability(item1.getId(), from, to)).thenReturn(availability);
+
+        assertThat(itemService.getAvailability(user1.getId(), item1.getId(), from, to)).isEqualTo(availability);
+    }
+
+    @Test
+    void shouldThrowExceptionWhenGettingAvailabilityForWrongRange() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        when(itemRepository.existsById(item1.getId())).thenReturn(true);
+
+        assertThrows(ValidationException.class, () ->
+                itemService.getAvailability(user1.getId(), item1.getId(), from, from));
+        assertThrows(ValidationException.class, () ->
+                itemService.getAvailability(user1.getId(), item1.getId(), from, from.plusDays(367)));
+        assertThrows(NotFoundException.class, () ->
+                itemService.getAvailability(user1.getId(), 999L, from, from.plusDays(1)));
+        verifyNoInteractions(calendar);
+    }
+}
@@ -0,0 +1,82 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.service.TrigramIndex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TrigramIndexTest {
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex(0.4);
+        index.put(1L, "Дрель ударная Мощная дрель для бетона", true);
+        index.put(2L, "Cordless drill For wood and metal", true);
+        index.put(3L, "Hammer Heavy", true);
+        index.put(4L, "Old drel Broken", false);
+    }
+
+    @Test
+    void shouldFindTransliteratedAndMisspelledWordsBestFirst() {
+        assertEquals(List.of(1L, 2L), index.search("drel", 0, 10));
+        assertEquals(List.of(1L, 2L), index.search("ДРЕЛЬ", 0, 10));
+    }
+
+    @Test
+    void shouldFindSubstringsAndPage() {
+        assertEquals(List.of(3L), index.search("hamm", 0, 10));
+        assertEquals(List.of(2L), index.search("drel", 1, 1));
+        assertEquals(List.of(), index.search("drel", 2, 1));
+        assertEquals(List.of(), index.search("!?", 0, 10));
+    }
+
+    @Test
+    void shouldReplaceTextAndAvailabilityOnUpdate() {
+        index.put(4L, "Saw", true);
+        index.put(3L, "Hammer Heavy", false);
+
+        assertEquals(List.of(1L, 2L), index.search("drel", 0, 10));
+        assertEquals(List.of(4L), index.search("saw", 0, 10));
+        assertEquals(List.of(), index.search("hammer", 0, 10));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void shouldCountBroadQueriesAgainIntoReusedCounts() {
+        TrigramIndex broad = new TrigramIndex(0.4);
+        for (long id = 1; id <= 200; id++) {
+            broad.put(id, id % 2 == 0 ? "Drill" : "Drill cordless", true);
+        }
+
+        assertEquals(List.of(1L, 3L, 5L), broad.search("cordless drill", 0, 3));
+        assertEquals(List.of(1L, 3L, 5L), broad.search("cordless drill", 0, 3));
+        assertEquals(List.of(101L, 102L), broad.search("drill", 100, 2));
+    }
+
+    @Test
+    void shouldIndexIdsBeyondIntRangeAndRankEqualsByIdWhateverTheInsertOrder() {
+        TrigramIndex sparse = new TrigramIndex(0.4);
+        long large = 1L << 40;
+        sparse.put(large + 1, "Drill", true);
+        sparse.put(large, "Drill", true);
+        sparse.put(7L, "Drill cordless", true);
+        sparse.put(Long.MAX_VALUE, "Drill", true);
+        sparse.put(large, "Drill", false);
+
+        assertEquals(List.of(7L, large + 1, Long.MAX_VALUE), sparse.search("cordless drill", 0, 10));
+        assertEquals(List.of(large + 1, Long.MAX_VALUE), sparse.search("drill", 1, 2));
+        assertEquals(4, sparse.size());
+    }
+
+    @Test
+    void shouldEncodeDistinctSortedTrigrams() {
+        int[] grams = TrigramIndex.trigrams("aa aa");
+
+        assertArrayEquals(new int[]{1, 37 + 1, (37 + 1) * 37}, grams);
+    }
+}
@@ -73,7 +73,7 @@ class ItemRequestServiceTest {
         when(userService.getUserById(Mockito.anyLong())).thenReturn(user1);
         when(requestRepository
                 .findAllByRequesterIdOrderByCreatedDesc(Mockito.anyLong())).thenReturn(List.of(itemRequest1));
-        when(itemRepository.findAllByRequestIdIn(Mockito.anyList())).thenReturn(List.of(item1));
+        when(itemRepository.findShortByRequestIdIn(Mockito.anyList())).thenReturn(List.of(ItemMapper.toShortDto(item1)));
 
         assertThat(requestService.getByRequester(user1.getId())).asList().contains(itemRequestDto1);
     }
@@ -84,7 +84,7 @@ class ItemRequestServiceTest {
         when(requestRepository
                 .findAllByRequesterIdNotOrderByCreatedDesc(Mockito.anyLong(), Mockito.any(Pageable.class)))
                 .thenReturn(List.of(itemRequest1));
-        when(itemRepository.findAllByRequestIdIn(Mockito.anyList())).thenReturn(List.of(item1));
+        when(itemRepository.findShortByRequestIdIn(Mockito.anyList())).thenReturn(List.of(ItemMapper.toShortDto(item1)));
 
         assertThat(requestService.getAll(user1.getId(), 1, 20)).asList().contains(itemRequestDto1);
     }
@@ -102,7 +102,7 @@ class ItemRequestServiceTest {
     void shouldReturnRequestDtoWhenGettingByRequestId() {
         when(userService.getUserById(Mockito.anyLong())).thenReturn(user1);
         when(requestRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(itemRequest1));
-        when(itemRepository.findAllByRequestId(Mockito.anyLong())).thenReturn(List.of(item1));
+        when(itemRepository.findShortByRequestId(Mockito.anyLong())).thenReturn(List.of(ItemMapper.toShortDto(item1)));
 
         assertThat(requestService.getById(user1.getId(), itemRequest1.getId())).isEqualTo(itemRequestDto1);
     }
@@ -1,60 +0,0 @@
-DROP TABLE IF EXISTS users, item_requests, items, bookings, comments;
-
-CREATE TABLE IF NOT EXISTS users (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
-    name VARCHAR(255) NOT NULL,
-    email VARCHAR(255) NOT NULL,
-    CONSTRAINT pk_user PRIMARY KEY (id),
-    CONSTRAINT UQ_USER_EMAIL UNIQUE (email)
-);
-
-CREATE TABLE IF NOT EXISTS item_requests (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
-    description VARCHAR(512) NOT NULL,
-    requester_id BIGINT NOT NULL,
-    created TIMESTAMP WITHOUT TIME ZONE,
-    CONSTRAINT pk_request PRIMARY KEY (id),
-    CONSTRAINT fk_request_to_user FOREIGN KEY (requester_id)
-        REFERENCES users(id)
-);
-
-CREATE TABLE IF NOT EXISTS items (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
-    name VARCHAR(255) NOT NULL,
-    description VARCHAR(512) NOT NULL,
-    owner BIGINT NOT NULL,
-    available BOOLEAN NOT NULL,
-    request_id BIGINT,
-    CONSTRAINT pk_item PRIMARY KEY (id),
-    CONSTRAINT fk_owner_to_user FOREIGN KEY (owner)
-        REFERENCES users(id),
-    CONSTRAINT fk_request_to_item_request FOREIGN KEY (request_id)
-        REFERENCES item_requests(id)
-);
-
-CREATE TABLE IF NOT EXISTS bookings (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
-    item_id BIGINT NOT NULL,
-    booker_id BIGINT NOT NULL,
-    status VARCHAR(16) NOT NULL,
-    start_time TIMESTAMP WITHOUT TIME ZONE NOT NULL,
-    end_time TIMESTAMP WITHOUT TIME ZONE NOT NULL,
-    CONSTRAINT pk_booking PRIMARY KEY (id),
-    CONSTRAINT fk_booking_item_id_to_item FOREIGN KEY (item_id)
-        REFERENCES items(id),
-    CONSTRAINT fk_booker_id_to_user FOREIGN KEY (booker_id)
-        REFERENCES users(id)
-);
-
-CREATE TABLE IF NOT EXISTS comments (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
-    text VARCHAR(512) NOT NULL,
-    item_id BIGINT NOT NULL,
-    author_id BIGINT NOT NULL,
-    created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
-    CONSTRAINT pk_comment PRIMARY KEY (id),
-    CONSTRAINT fk_item_id_to_item FOREIGN KEY (item_id)
-        REFERENCES items(id),
-    CONSTRAINT fk_author_id_to_author FOREIGN KEY (author_id)
-        REFERENCES users(id)
-)
\ No newline at end of file